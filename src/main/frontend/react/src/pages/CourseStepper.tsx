@@ -349,32 +349,27 @@ const CourseStepper = () => {
         fetchCourseData();
     }, [courseId, user?.token]);
 
-    const updateProgress = async (newCompletedSteps: number[]) => {
+    // Процент считает сервер по пройденным материалам и оценённым заданиям
+    const updateProgress = async (newCompletedSteps: number[], material: EducationMaterial) => {
         try {
             setIsSavingProgress(true);
             // Уникальные пройденные шаги
             const uniqueCompleted = Array.from(new Set(newCompletedSteps));
-            const percent = Math.floor((uniqueCompleted.length / materials.length) * 100);
 
-            const response = await fetch('http://localhost:8080/api/progress', {
+            const response = await fetch(`http://localhost:8080/api/progress/materials/${material.id}/complete`, {
                 method: 'POST',
                 headers: {
-                    'Authorization': `Bearer ${user?.token}`,
-                    'Content-Type': 'application/json'
-                },
-                body: JSON.stringify({
-                    courseId: parseInt(courseId || '0'),
-                    percent: Math.min(percent, 100),
-                    completedSteps: uniqueCompleted
-                })
+                    'Authorization': `Bearer ${user?.token}`
+                }
             });
 
             if (!response.ok) throw new Error('Ошибка сохранения прогресса');
 
+            const progressData = await response.json();
             setCourseProgress(prev => ({
                 ...prev!,
-                percent: Math.min(percent, 100),
-                graduationDate: percent >= 100 ? new Date().toISOString() : prev?.graduationDate || null
+                percent: progressData.percent,
+                graduationDate: progressData.graduationDate
             }));
 
             return uniqueCompleted;
@@ -390,7 +385,7 @@ const CourseStepper = () => {
         // Добавляем текущий шаг в пройденные только если он еще не пройден
         if (!completedSteps.includes(activeStep)) {
             const newCompleted = [...completedSteps, activeStep];
-            const updatedCompleted = await updateProgress(newCompleted);
+            const updatedCompleted = await updateProgress(newCompleted, materials[activeStep]);
             setCompletedSteps(updatedCompleted);
         }
 
@@ -1,20 +1,31 @@
 package dev.lms.controllers;
 
 import dev.lms.dto.AssignmentDto;
+import dev.lms.dto.AssignmentStatsDto;
+import dev.lms.dto.AssignmentStatsRepairReportDto;
+import dev.lms.dto.MissingSubmissionDto;
 import dev.lms.dto.EducationMaterialDto;
+import dev.lms.jwt.CurrentUser;
+import dev.lms.jwt.JwtPrincipal;
 import dev.lms.models.Assignment;
 import dev.lms.models.EducationMaterial;
 import dev.lms.repository.AssignmentRepository;
 import dev.lms.repository.EducationMaterialRepository;
+import dev.lms.service.AssignmentDeadlineService;
 import dev.lms.service.AssignmentService;
+import dev.lms.service.AssignmentStatsService;
+import dev.lms.service.CourseWorkspaceService;
 import dev.lms.service.EducationMaterialService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/assignments")
@@ -22,6 +33,9 @@ import java.util.Map;
 public class AssignmentController {
     private final AssignmentService assignmentService;
     private final AssignmentRepository assignmentRepository;
+    private final AssignmentStatsService statsService;
+    private final AssignmentDeadlineService deadlineService;
+    private final CourseWorkspaceService courseWorkspaceService;
 
     @GetMapping("/{courseId}")
     public ResponseEntity<List<AssignmentDto>> getAllMaterialsByCourseId(@PathVariable Integer courseId) {
@@ -47,16 +61,53 @@ public class AssignmentController {
             return ResponseEntity.status(404).body("Material not found");
         }
 
+        LocalDateTime deadline = LocalDateTime.parse(requestBody.get("deadline"));
+        boolean deadlineChanged = !Objects.equals(updateAssignment.getDeadline(), deadline);
         updateAssignment.setAssignmentName(requestBody.get("assignmentName"));
         updateAssignment.setAssignmentDescription(requestBody.get("assignmentDescription"));
-        updateAssignment.setDeadline(LocalDateTime.parse(requestBody.get("deadline")));
+        updateAssignment.setDeadline(deadline);
         assignmentRepository.save(updateAssignment);
+        courseWorkspaceService.contentChanged(updateAssignment.getCourse().getId());
+        // Опоздания считаются от срока, при его смене счётчики и отметки задания пересчитываются
+        if (deadlineChanged) {
+            statsService.recompute(id);
+            deadlineService.deadlineChanged(id);
+        }
         return ResponseEntity.ok(new AssignmentDto(updateAssignment));
     }
 
+    // Статистика по заданию: решения, оценки, опоздания, студенты без решений
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<AssignmentStatsDto> getAssignmentStats(@PathVariable Integer id,
+                                                                 @CurrentUser JwtPrincipal user) {
+        checkStaff(user);
+        return ResponseEntity.ok(statsService.getStats(id));
+    }
+
+    // Студенты курса без решения к сроку задания
+    @GetMapping("/{id}/missing")
+    public ResponseEntity<List<MissingSubmissionDto>> getMissingSubmissions(@PathVariable Integer id,
+                                                                            @CurrentUser JwtPrincipal user) {
+        checkStaff(user);
+        return ResponseEntity.ok(deadlineService.getMissing(id));
+    }
+
+    // Сверка счётчиков статистики с решениями и исправление расхождений
+    @PostMapping("/stats/repair")
+    public ResponseEntity<AssignmentStatsRepairReportDto> repairAssignmentStats(@CurrentUser JwtPrincipal user) {
+        checkStaff(user);
+        return ResponseEntity.ok(statsService.repair());
+    }
+
     @DeleteMapping("/{id}/delete")
     public ResponseEntity<?> deleteAssignment(@PathVariable Integer id) {
         assignmentService.deleteAssignment(id);
         return ResponseEntity.ok("Material deleted");
     }
+
+    private static void checkStaff(JwtPrincipal user) {
+        if ("STUDENT".equals(user.userType())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Available to staff only");
+        }
+    }
 }
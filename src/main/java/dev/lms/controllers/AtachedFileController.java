@@ -10,11 +10,12 @@ import dev.lms.repository.AssignmentRepository;
 import dev.lms.repository.AttachedFileRepository;
 import dev.lms.repository.DocumentRepository;
 import dev.lms.service.AttachedFileService;
+import dev.lms.service.CourseWorkspaceService;
+import dev.lms.service.FileDownloadService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -23,11 +24,6 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -40,6 +36,8 @@ public class AtachedFileController {
     private final AttachedFileRepository attachedFileRepository;
     private final AssignmentRepository assignmentRepository;
     private final AttachedFileService attachedFileService;
+    private final FileDownloadService fileDownloadService;
+    private final CourseWorkspaceService courseWorkspaceService;
 
     @Value("${upload.path}")
     private String uploadPath;
@@ -86,6 +84,7 @@ public class AtachedFileController {
             Optional<Assignment> assignment = assignmentRepository.findById(taskId);
             assignment.ifPresent(newfile::setAssignment);
             AttachedFile savedFile = attachedFileRepository.save(newfile);
+            assignment.ifPresent(task -> courseWorkspaceService.contentChanged(task.getCourse().getId()));
             AttachedFileDto fileDto = new AttachedFileDto(savedFile);
 
             return ResponseEntity.ok(fileDto);
@@ -94,22 +93,12 @@ public class AtachedFileController {
         }
     }
 
+    // Файл отдаётся потоком без чтения в память, с поддержкой докачки (Range/If-Range)
     @GetMapping("/download/{filename:.+}")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable String filename) throws IOException {
-        String decodedFilename = URLDecoder.decode(filename, StandardCharsets.UTF_8);
-        Path filePath = Paths.get(uploadPath, decodedFilename);
-
-        if (!Files.exists(filePath)) {
-            return ResponseEntity.notFound().build();
-        }
-
-        byte[] fileContent = Files.readAllBytes(filePath);
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + decodedFilename + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(fileContent);
+    public void downloadFile(@PathVariable String filename,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        fileDownloadService.send(filename, request, response);
     }
 
     @GetMapping("/assignment/{taskId}")
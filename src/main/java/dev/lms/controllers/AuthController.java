@@ -3,14 +3,19 @@ package dev.lms.controllers;
 import dev.lms.dto.StudentRegistrationDto;
 import dev.lms.jwt.AuthRequest;
 import dev.lms.jwt.AuthResponse;
-import dev.lms.models.Worker;
+import dev.lms.ratelimit.AuthRateLimiter;
 import dev.lms.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -18,19 +23,34 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
 
     private final AuthService authService;
+    private final AuthRateLimiter authRateLimiter;
 
+    // BCrypt выполняется в отдельном пуле, поток Tomcat освобождается до получения ответа
     @PostMapping("/register/student")
-    public ResponseEntity<AuthResponse> register(@RequestBody StudentRegistrationDto dto) {
-        return ResponseEntity.ok(authService.registerStudent(dto));
+    public CompletableFuture<ResponseEntity<AuthResponse>> register(@RequestBody StudentRegistrationDto dto,
+                                                                    HttpServletRequest request) {
+        checkRateLimit(request, dto.getEmail());
+        return authService.registerStudent(dto).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/login/student")
-    public ResponseEntity<AuthResponse> login(@RequestBody AuthRequest request) {
-        return ResponseEntity.ok(authService.authenticateStudent(request));
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@RequestBody AuthRequest authRequest,
+                                                                 HttpServletRequest request) {
+        checkRateLimit(request, authRequest.email());
+        return authService.authenticateStudent(authRequest).thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/login/worker")
-    public ResponseEntity<AuthResponse> loginWorker(@RequestBody AuthRequest request) {
-        return ResponseEntity.ok(authService.authenticateWorker(request));
+    public CompletableFuture<ResponseEntity<AuthResponse>> loginWorker(@RequestBody AuthRequest authRequest,
+                                                                       HttpServletRequest request) {
+        checkRateLimit(request, authRequest.email());
+        return authService.authenticateWorker(authRequest).thenApply(ResponseEntity::ok);
+    }
+
+    // Проверка лимита до обращения к AuthService, чтобы перебор паролей не доходил до BCrypt и БД
+    private void checkRateLimit(HttpServletRequest request, String email) {
+        if (!authRateLimiter.tryAcquire(request.getRemoteAddr(), email)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many requests");
+        }
     }
-}
\ No newline at end of file
+}
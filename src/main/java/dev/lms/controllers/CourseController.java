@@ -1,20 +1,27 @@
 package dev.lms.controllers;
 
 import dev.lms.dto.CourseDetailsDto;
+import dev.lms.dto.CourseFilterDto;
+import dev.lms.dto.CourseSearchResultDto;
 import dev.lms.dto.CourseShortDto;
-import dev.lms.jwt.JwtCore;
+import dev.lms.dto.CursorPageDto;
+import dev.lms.jwt.CurrentUser;
+import dev.lms.jwt.JwtPrincipal;
 import dev.lms.models.*;
-import dev.lms.repository.CourseCategoryRepository;
-import dev.lms.repository.CourseRepository;
-import dev.lms.repository.CourseStatusRepository;
-import io.jsonwebtoken.Jwts;
-import jakarta.servlet.http.HttpServletRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import dev.lms.service.CourseCatalogCache;
 import dev.lms.service.CourseService;
+import dev.lms.service.CourseWorkspaceService;
+import dev.lms.service.ETags;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -23,19 +30,49 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class CourseController {
     private final CourseService courseService;
-    private final JwtCore jwtCore;
-    private final CourseRepository courseRepository;
-    private final CourseCategoryRepository courseCategoryRepository;
-    private final CourseStatusRepository courseStatusRepository;
+    private final CourseWorkspaceService courseWorkspaceService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public ResponseEntity<List<CourseShortDto>> getAllCourses() {
-        return ResponseEntity.ok(courseService.getAllCourses());
+    public ResponseEntity<byte[]> getAllCourses(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return catalogResponse(courseService.getCachedCourses(), ifNoneMatch);
     }
 
     @GetMapping("/details")
-    public ResponseEntity<List<CourseDetailsDto>> getAllCoursesWithDetails() {
-        return ResponseEntity.ok(courseService.getAllCoursesWithDetails());
+    public ResponseEntity<byte[]> getAllCoursesWithDetails(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return catalogResponse(courseService.getCachedCoursesWithDetails(), ifNoneMatch);
+    }
+
+    // Постраничный каталог с фильтрами: /api/courses/page?size=20&categoryId=1&cursor=...
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDto<CourseShortDto>> getCoursesPage(@ModelAttribute CourseFilterDto filter,
+                                                                        @RequestParam(required = false) String cursor,
+                                                                        @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(courseService.getCoursesPage(filter, cursor, size));
+    }
+
+    // Поиск по каталогу с фасетами: /api/courses/search?q=аналитика данных&categoryId=1
+    @GetMapping("/search")
+    public ResponseEntity<CourseSearchResultDto> searchCourses(@RequestParam(defaultValue = "") String q,
+                                                               @RequestParam(required = false) Integer categoryId,
+                                                               @RequestParam(required = false) Integer statusId,
+                                                               @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(courseService.searchCourses(q, categoryId, statusId, limit));
+    }
+
+    // Клиент с актуальной версией каталога получает 304 без тела
+    private ResponseEntity<byte[]> catalogResponse(CourseCatalogCache.Entry entry, String ifNoneMatch) {
+        if (ETags.matches(ifNoneMatch, entry.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(entry.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(entry.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(entry.body());
     }
 
     @GetMapping("/{id}")
@@ -44,36 +81,39 @@ public class CourseController {
         return ResponseEntity.ok(courseDetails);
     }
 
+    // Страница курса одним запросом: курс, материалы, задания с файлами, группы и прогресс студента
+    @GetMapping("/{id}/workspace")
+    public ResponseEntity<byte[]> getCourseWorkspace(@PathVariable Integer id,
+                                                     @CurrentUser(required = false) JwtPrincipal user,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+            throws JsonProcessingException {
+        Integer studentId = user != null && "STUDENT".equals(user.userType()) ? user.id() : null;
+        // ETag по версии курса читается до сборки страницы, при совпадении страница не собирается
+        String etag = courseWorkspaceService.etag(id, studentId);
+
+        // Ответ зависит от пользователя, поэтому кэшируется только в браузере
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .varyBy(HttpHeaders.AUTHORIZATION)
+                    .build();
+        }
+        byte[] body = objectMapper.writeValueAsBytes(courseWorkspaceService.getWorkspace(id, studentId));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.AUTHORIZATION)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     // Получение списка курсов работника
     @GetMapping("/my")
-    public ResponseEntity<?> getMyCourses(HttpServletRequest request) {
+    public ResponseEntity<?> getMyCourses(@CurrentUser JwtPrincipal user) {
         try {
-            // Получаем токен из заголовка Authorization
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-
-            // Проверяем валидность токена
-            if (!jwtCore.validateToken(token)) {
-                return  ResponseEntity.status(401).body("Invalid token");
-            }
-
-            // Извлекаем ID работника из токена
-            Integer workerId = (Integer) Jwts.parser()
-                    .setSigningKey(jwtCore.getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .get("id");
-
-            if (workerId == null) {
-                return ResponseEntity.status(403).body("Worker ID not found in token");
-            }
-            // Получаем заявки студента
-            List<CourseShortDto> courses = courseService.getAllCoursesByWorkerId(workerId);
+            List<CourseShortDto> courses = courseService.getAllCoursesByWorkerId(user.id());
             return ResponseEntity.ok(courses);
 
         } catch (Exception e) {
@@ -82,31 +122,8 @@ public class CourseController {
     }
 
     @PostMapping("/create")
-    public ResponseEntity<?> createCourse(@RequestBody CourseDetailsDto courseDto, HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-        }
-
-        String token = authHeader.substring(7);
-
-        // Проверяем валидность токена
-        if (!jwtCore.validateToken(token)) {
-            return  ResponseEntity.status(401).body("Invalid token");
-        }
-
-        // Извлекаем ID работника из токена
-        Integer workerId = (Integer) Jwts.parser()
-                .setSigningKey(jwtCore.getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("id");
-
-        if (workerId == null) {
-            return ResponseEntity.status(403).body("Worker ID not found in token");
-        }
-        Course course = courseService.createCourse(courseDto, workerId);
+    public ResponseEntity<?> createCourse(@RequestBody CourseDetailsDto courseDto, @CurrentUser JwtPrincipal user) {
+        Course course = courseService.createCourse(courseDto, user.id());
         return ResponseEntity.ok(new CourseDetailsDto(course));
     }
 
@@ -115,25 +132,10 @@ public class CourseController {
     public ResponseEntity<?> updateCourse(@PathVariable Integer id,
                                            @RequestBody Map<String, String> requestBody) {
 
-        Course updateCourse = courseRepository.findById(Long.valueOf(id)).orElse(null);
+        Course updateCourse = courseService.updateCourse(id, requestBody).orElse(null);
         if (updateCourse == null) {
             return ResponseEntity.status(404).body("Course not found");
         }
-
-        Category category = courseCategoryRepository.findByName(requestBody.get("category"));
-        CourseStatus status = courseStatusRepository.findByName(requestBody.get("status"));
-
-        updateCourse.setName(requestBody.get("name"));
-        updateCourse.setDescription(requestBody.get("description"));
-        updateCourse.setStudyDirection(requestBody.get("studyDirection"));
-        updateCourse.setStartDate(LocalDateTime.parse(requestBody.get("startDate")));
-        updateCourse.setEndDate(LocalDateTime.parse(requestBody.get("endDate")));
-        updateCourse.setResultCompetence(requestBody.get("resultCompetence"));
-        updateCourse.setHoursCount(Integer.valueOf(requestBody.get("hoursCount")));
-        updateCourse.setCategory(category);
-        updateCourse.setStatus(status);
-
-        courseRepository.save(updateCourse);
         return ResponseEntity.ok(new CourseDetailsDto(updateCourse));
     }
 
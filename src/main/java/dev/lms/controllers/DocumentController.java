@@ -3,17 +3,19 @@ package dev.lms.controllers;
 
 import dev.lms.dto.DocumentDto;
 import dev.lms.dto.StudyingProgressDto;
-import dev.lms.jwt.JwtCore;
+import dev.lms.jwt.CurrentUser;
+import dev.lms.jwt.JwtPrincipal;
 import dev.lms.models.*;
 import dev.lms.repository.*;
 import dev.lms.service.DocumentService;
+import dev.lms.service.FileDownloadService;
+import dev.lms.service.ReferenceDataRegistry;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -22,8 +24,6 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -38,11 +38,11 @@ import java.util.UUID;
 public class DocumentController {
     private final StudentRepository studentRepository;
     private final WorkerRepository workerRepository;
-    private final JwtCore jwtCore;
     private final DocumentRepository documentRepository;
     private final RequestRepository requestRepository;
     private final DocumentService documentService;
-    private final DocumentTypeRepository documentTypeRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final FileDownloadService fileDownloadService;
 
     @Value("${upload.path}")
     private String uploadPath;
@@ -50,27 +50,12 @@ public class DocumentController {
     @Transactional
     @PostMapping("/upload/by-student")
     public ResponseEntity<?> uploadDocument(@RequestParam("file") MultipartFile file,
-                                            HttpServletRequest request,
+                                            @CurrentUser JwtPrincipal user,
                                             @RequestParam Integer documentTypeId) {
         try {
-            // Получаем токен из заголовка Authorization
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-
-            // Проверяем валидность токена
-            if (!jwtCore.validateToken(token)) {
-                return  ResponseEntity.status(401).body("Invalid token");
-            }
-
-            DocumentType documentType = documentTypeRepository.findByTypeId(documentTypeId);
+            DocumentType documentType = referenceData.documentType(documentTypeId).orElse(null);
 
-            Integer studentId = jwtCore.getUserIdFromToken(token);
-
-            Student student = studentRepository.findStudentById(Long.valueOf(studentId));
+            Student student = studentRepository.findStudentById(Long.valueOf(user.id()));
 
             if (file.isEmpty()) {
                 return ResponseEntity.badRequest().body("File is empty");
@@ -125,27 +110,12 @@ public class DocumentController {
     @PostMapping("/upload/{requestId}")
     public ResponseEntity<?> uploadDocument(@PathVariable Integer requestId,
                                             @RequestParam("file") MultipartFile file,
-                                            HttpServletRequest request,
+                                            @CurrentUser JwtPrincipal user,
                                             @RequestParam Integer documentTypeId) {
         try {
-            // Получаем токен из заголовка Authorization
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-
-            // Проверяем валидность токена
-            if (!jwtCore.validateToken(token)) {
-                return  ResponseEntity.status(401).body("Invalid token");
-            }
+            DocumentType documentType = referenceData.documentType(documentTypeId).orElse(null);
 
-            DocumentType documentType = documentTypeRepository.findByTypeId(documentTypeId);
-
-            Integer workerId = jwtCore.getUserIdFromToken(token);
-
-            Worker worker = workerRepository.findById(workerId);
+            Worker worker = workerRepository.findById(user.id());
 
             Student student = requestRepository.findStudentByRequestId(Math.toIntExact(requestId));
 
@@ -199,22 +169,12 @@ public class DocumentController {
         }
     }
 
+    // Файл отдаётся потоком без чтения в память, с поддержкой докачки (Range/If-Range)
     @GetMapping("/download/{filename:.+}")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable String filename) throws IOException {
-        String decodedFilename = URLDecoder.decode(filename, StandardCharsets.UTF_8);
-        Path filePath = Paths.get(uploadPath, decodedFilename);
-
-        if (!Files.exists(filePath)) {
-            return ResponseEntity.notFound().build();
-        }
-
-        byte[] fileContent = Files.readAllBytes(filePath);
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION,
-                        "attachment; filename=\"" + decodedFilename + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(fileContent);
+    public void downloadFile(@PathVariable String filename,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        fileDownloadService.send(filename, request, response);
     }
 
     @GetMapping("/student/{studentId}")
@@ -234,19 +194,8 @@ public class DocumentController {
 
     @DeleteMapping("/delete/{documentId}")
     public ResponseEntity<?> deleteDocument(@PathVariable Long documentId,
-                                            HttpServletRequest request) {
+                                            @CurrentUser JwtPrincipal user) {
         try {
-            // Проверка авторизации
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-            if (!jwtCore.validateToken(token)) {
-                return ResponseEntity.status(401).body("Invalid token");
-            }
-
             // Поиск документа
             Optional<Document> documentOptional = documentRepository.findById(documentId);
             if (documentOptional.isEmpty()) {
@@ -6,6 +6,7 @@ import dev.lms.models.Course;
 import dev.lms.models.CourseStatus;
 import dev.lms.models.EducationMaterial;
 import dev.lms.repository.EducationMaterialRepository;
+import dev.lms.service.CourseWorkspaceService;
 import dev.lms.service.EducationMaterialService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,10 +20,13 @@ import java.util.Map;
 public class EducationMaterialController {
     private final EducationMaterialService educationMaterialService;
     private final EducationMaterialRepository educationMaterialRepository;
+    private final CourseWorkspaceService courseWorkspaceService;
 
-    public EducationMaterialController(EducationMaterialService educationMaterialService, EducationMaterialRepository educationMaterialRepository) {
+    public EducationMaterialController(EducationMaterialService educationMaterialService, EducationMaterialRepository educationMaterialRepository,
+                                       CourseWorkspaceService courseWorkspaceService) {
         this.educationMaterialService = educationMaterialService;
         this.educationMaterialRepository = educationMaterialRepository;
+        this.courseWorkspaceService = courseWorkspaceService;
     }
 
     @GetMapping("/{courseId}")
@@ -59,6 +63,9 @@ public class EducationMaterialController {
         updateMaterial.setText(requestBody.get("text"));
 
         educationMaterialRepository.save(updateMaterial);
+        if (updateMaterial.getCourse() != null) {
+            courseWorkspaceService.contentChanged(updateMaterial.getCourse().getId());
+        }
         return ResponseEntity.ok(new EducationMaterialDto(updateMaterial));
     }
 }
@@ -1,14 +1,14 @@
 package dev.lms.controllers;
 
 import dev.lms.dto.*;
-import dev.lms.jwt.JwtCore;
+import dev.lms.jwt.CurrentUser;
+import dev.lms.jwt.JwtPrincipal;
 import dev.lms.models.Passport;
 import dev.lms.models.Request;
 import dev.lms.models.Student;
 import dev.lms.repository.PassportRepository;
 import dev.lms.repository.StudentRepository;
 import dev.lms.service.PassportService;
-import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,7 +25,6 @@ public class PassportController {
     private final PassportRepository passportRepository;
     private final StudentRepository studentRepository;
     private final PassportService passportService;
-    private final JwtCore jwtCore;
 
     //  Получение паспорта по айди студента
     @GetMapping("/student/{studentId}")
@@ -38,26 +37,9 @@ public class PassportController {
     @PostMapping("/add")
     public ResponseEntity<?> addPassport(
             @RequestBody Map<String, String> requestBody,
-            HttpServletRequest request) {
+            @CurrentUser JwtPrincipal user) {
         try {
-            // Получаем токен из заголовка Authorization
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-
-            // Проверяем валидность токена
-            if (!jwtCore.validateToken(token)) {
-                return ResponseEntity.status(401).body("Invalid token");
-            }
-
-            Integer studentId = jwtCore.getUserIdFromToken(token);
-
-            if (studentId == null) {
-                return ResponseEntity.status(403).body("Student ID not found in token");
-            }
+            Integer studentId = user.id();
 
             Student student = studentRepository.findStudentById(studentId);
 
@@ -81,26 +63,9 @@ public class PassportController {
 
     @Transactional
     @PutMapping("/update")
-    public ResponseEntity<?> updatePassport(@RequestBody Map<String, String> requestBody, HttpServletRequest request) {
+    public ResponseEntity<?> updatePassport(@RequestBody Map<String, String> requestBody, @CurrentUser JwtPrincipal user) {
         try {
-            // Получаем токен из заголовка Authorization
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-
-            // Проверяем валидность токена
-            if (!jwtCore.validateToken(token)) {
-                return ResponseEntity.status(401).body("Invalid token");
-            }
-
-            Integer studentId = jwtCore.getUserIdFromToken(token);
-
-            if (studentId == null) {
-                return ResponseEntity.status(403).body("Student ID not found in token");
-            }
+            Integer studentId = user.id();
 
             Student student = studentRepository.findStudentById(studentId);
 
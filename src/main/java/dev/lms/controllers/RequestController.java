@@ -1,9 +1,15 @@
 package dev.lms.controllers;
 
 import dev.lms.dto.*;
-import dev.lms.jwt.JwtCore;
+import dev.lms.jwt.CurrentUser;
+import dev.lms.jwt.JwtPrincipal;
 import dev.lms.models.*;
 import dev.lms.repository.*;
+import dev.lms.export.ExportFormat;
+import dev.lms.service.ExportService;
+import dev.lms.service.GroupSeatService;
+import dev.lms.service.ProgressDashboardService;
+import dev.lms.service.ReferenceDataRegistry;
 import dev.lms.service.RequestService;
 import dev.lms.service.StudyingProgressService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,6 +17,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -21,12 +28,14 @@ import java.util.Objects;
 @RequiredArgsConstructor
 public class RequestController {
     private final RequestService requestService;
-    private final JwtCore jwtCore;
     private final RequestRepository requestRepository;
-    private final RequestStatusRepository requestStatusRepository;
+    private final ReferenceDataRegistry referenceData;
     private final WorkerRepository workerRepository;
     private final GroupRepository groupRepository;
     private final StudyingProgressService studyingProgressService;
+    private final GroupSeatService groupSeatService;
+    private final ExportService exportService;
+    private final ProgressDashboardService dashboardService;
 
     // Получение списка всех заявок
     @GetMapping
@@ -34,33 +43,33 @@ public class RequestController {
         return ResponseEntity.ok(requestService.getAllRequests());
     }
 
+    // Очередь заявок постранично: /api/requests/page?statusId=1&unassigned=true&sort=asc&cursor=...
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDto<RequestQueueItemDto>> getRequestQueue(@ModelAttribute RequestFilterDto filter,
+                                                                              @RequestParam(required = false) String cursor,
+                                                                              @RequestParam(defaultValue = "20") int size,
+                                                                              @RequestParam(defaultValue = "desc") String sort) {
+        return ResponseEntity.ok(requestService.getRequestQueue(filter, cursor, size, "asc".equalsIgnoreCase(sort)));
+    }
+
+    // Выгрузка заявок с теми же фильтрами, что и у очереди: /api/requests/export?format=xlsx&statusId=1
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportRequests(@ModelAttribute RequestFilterDto filter,
+                                                                @RequestParam(defaultValue = "csv") String format,
+                                                                @CurrentUser JwtPrincipal user) {
+        exportService.checkAccess(user);
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return exportFormat.attachment("requests", exportService.exportRequests(filter, exportFormat));
+    }
+
     // Создание заявки
     @PostMapping
     public ResponseEntity<?> createRequest(
             @RequestBody CreateRequestDTO dto,
-            HttpServletRequest request) {
+            @CurrentUser JwtPrincipal user) {
         try {
-            // Получаем токен из заголовка Authorization
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-
-            // Проверяем валидность токена
-            if (!jwtCore.validateToken(token)) {
-                return ResponseEntity.status(401).body("Invalid token");
-            }
-
-            Integer studentId = jwtCore.getUserIdFromToken(token);
-
-            if (studentId == null) {
-                return ResponseEntity.status(403).body("Student ID not found in token");
-            }
-
             // Создаем заявку
-            RequestDto createdRequest = requestService.createRequest(dto, studentId.longValue());
+            RequestDto createdRequest = requestService.createRequest(dto, user.id().longValue());
             return ResponseEntity.ok(createdRequest);
 
         } catch (Exception e) {
@@ -69,25 +78,12 @@ public class RequestController {
     }
 
     // Обновление статуса заявки при смене статуса
+    @Transactional
     @PutMapping("/{id}/status")
     public ResponseEntity<?> updateRequest(@PathVariable Integer id,
                                            @RequestBody Map<String, Integer> requestBody,
-                                           HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-        }
-
-        String token = authHeader.substring(7);
-
-        // Проверяем валидность токена
-        if (!jwtCore.validateToken(token)) {
-            return  ResponseEntity.status(401).body("Invalid token");
-        }
-
-        // Извлекаем ID работника из токена
-        Integer workerId = jwtCore.getUserIdFromToken(token);
-        Worker worker = workerRepository.findById(workerId);
+                                           @CurrentUser JwtPrincipal user) {
+        Worker worker = workerRepository.findById(user.id());
 
         Request updateRequest = requestRepository.findById(id).orElse(null);
         if (updateRequest == null) {
@@ -99,7 +95,7 @@ public class RequestController {
             return ResponseEntity.badRequest().body("Status ID must not be null");
         }
 
-        RequestStatus updateStatus = requestStatusRepository.findById(statusId).orElse(null);
+        RequestStatus updateStatus = referenceData.requestStatus(statusId).orElse(null);
         if (updateStatus == null) {
             return ResponseEntity.status(404).body("Status not found");
         }
@@ -110,17 +106,36 @@ public class RequestController {
             return ResponseEntity.status(404).body("Group not found");
         }
 
-        if (Objects.equals(updateStatus.getName(), "Одобрена")) {
+        // Место в новой группе занимается атомарно до остальных изменений заявки
+        Group previousGroup = updateRequest.getGroup();
+        if (previousGroup == null || !previousGroup.getId().equals(group.getId())) {
+            if (!groupSeatService.tryTakeSeats(group.getId(), 1)) {
+                return ResponseEntity.status(409).body("Group is full");
+            }
+            if (previousGroup != null) {
+                groupSeatService.releaseSeats(previousGroup.getId(), 1);
+            }
+        }
+
+        if (Objects.equals(updateStatus.getName(), ReferenceDataRegistry.APPROVED_REQUEST_STATUS)) {
             studyingProgressService.createNewProgress(updateRequest);
         }
         updateRequest.setWorker(worker);
         updateRequest.setGroup(group);
         updateRequest.setStatus(updateStatus);
         requestRepository.save(updateRequest);
+        dashboardService.invalidateCourse(updateRequest.getCourse().getId());
         RequestDto updatedStatus = new RequestDto(updateRequest);
         return ResponseEntity.ok(updatedStatus);
     }
 
+    // Массовое решение по заявкам: один статус и группа для списка заявок
+    @PutMapping("/status/bulk")
+    public ResponseEntity<BulkRequestDecisionResultDto> decideRequests(@RequestBody BulkRequestDecisionDto dto,
+                                                                       @CurrentUser JwtPrincipal user) {
+        return ResponseEntity.ok(requestService.decideRequests(dto, user.id()));
+    }
+
     // Удаление пользователя из группы (смена айди группы в заявке на 0)
     @Transactional
     @PutMapping("/{requestId}/group")
@@ -131,9 +146,13 @@ public class RequestController {
             return ResponseEntity.status(404).body("Request not found");
         }
 
+        if (updateRequest.getGroup() != null) {
+            groupSeatService.releaseSeats(updateRequest.getGroup().getId(), 1);
+        }
         updateRequest.setGroup(null);
 
         requestRepository.save(updateRequest);
+        dashboardService.invalidateCourse(updateRequest.getCourse().getId());
         RequestDto updatedGroup = new RequestDto(updateRequest);
         return ResponseEntity.ok(updatedGroup);
     }
@@ -167,25 +186,10 @@ public class RequestController {
 
     // Получение списка заявок авторизованного пользователя
     @GetMapping("/my")
-    public ResponseEntity<?> getMyRequests(HttpServletRequest request) {
+    public ResponseEntity<?> getMyRequests(@CurrentUser JwtPrincipal user) {
         try {
-            // Получаем токен из заголовка Authorization
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-
-            // Проверяем валидность токена
-            if (!jwtCore.validateToken(token)) {
-                return  ResponseEntity.status(401).body("Invalid token");
-            }
-
-            Integer studentId = jwtCore.getUserIdFromToken(token);
-
             // Получаем заявки студента
-            List<RequestDTOBuilder> requests = requestService.getRequestsByStudent(studentId);
+            List<RequestDTOBuilder> requests = requestService.getRequestsByStudent(user.id());
             return ResponseEntity.ok(requests);
 
         } catch (Exception e) {
@@ -195,25 +199,10 @@ public class RequestController {
 
     // Получение списка курсов авторизованного пользователя
     @GetMapping("/my-courses")
-    public ResponseEntity<?> getMyCourses(HttpServletRequest request) {
+    public ResponseEntity<?> getMyCourses(@CurrentUser JwtPrincipal user) {
         try {
-            // Получаем токен из заголовка Authorization
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-
-            // Проверяем валидность токена
-            if (!jwtCore.validateToken(token)) {
-                return  ResponseEntity.status(401).body("Invalid token");
-            }
-
-            Integer studentId = jwtCore.getUserIdFromToken(token);
-
             // Получаем заявки студента
-            List<CourseShortDto> courses = requestService.getCoursesByStudent(studentId);
+            List<CourseShortDto> courses = requestService.getCoursesByStudent(user.id());
             return ResponseEntity.ok(courses);
 
         } catch (Exception e) {
@@ -232,4 +221,18 @@ public class RequestController {
 
         return ResponseEntity.ok(students);
     }
+
+    // Выгрузка состава группы в CSV/XLSX
+    @GetMapping("/groups/{selectedGroup}/students/export")
+    public ResponseEntity<?> exportStudentsByGroup(@PathVariable Integer selectedGroup,
+                                                   @RequestParam(defaultValue = "csv") String format,
+                                                   @CurrentUser JwtPrincipal user) {
+        exportService.checkAccess(user);
+        if (!groupRepository.existsById(selectedGroup)) {
+            return ResponseEntity.status(404).body("Group not found");
+        }
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return exportFormat.attachment("group-" + selectedGroup + "-students",
+                exportService.exportGroupRoster(selectedGroup, exportFormat));
+    }
 }
\ No newline at end of file
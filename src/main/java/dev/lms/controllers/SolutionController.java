@@ -1,20 +1,23 @@
 package dev.lms.controllers;
 
 import dev.lms.dto.*;
-import dev.lms.jwt.JwtCore;
+import dev.lms.jwt.CurrentUser;
+import dev.lms.jwt.JwtPrincipal;
 import dev.lms.models.Request;
 import dev.lms.models.Solution;
 import dev.lms.models.Worker;
 import dev.lms.repository.SolutionRepository;
 import dev.lms.repository.WorkerRepository;
+import dev.lms.service.AssignmentStatsService;
+import dev.lms.service.GradingQueueService;
 import dev.lms.service.SolutionService;
-import io.jsonwebtoken.Jwt;
-import jakarta.servlet.http.HttpServletRequest;
+import dev.lms.service.StudyingCompletionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.Map;
@@ -24,9 +27,46 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class SolutionController {
     private final SolutionService solutionService;
-    private final JwtCore jwtCore;
     private final SolutionRepository solutionRepository;
     private final WorkerRepository workerRepository;
+    private final StudyingCompletionService completionService;
+    private final GradingQueueService gradingQueueService;
+    private final AssignmentStatsService statsService;
+
+    // Массовая оценка решений: балл и статус для каждого решения одним запросом
+    @PutMapping("/grade/bulk")
+    public ResponseEntity<BulkGradeResultDto> gradeSolutions(@RequestBody BulkGradeDto dto,
+                                                             @CurrentUser JwtPrincipal user) {
+        checkWorker(user);
+        return ResponseEntity.ok(solutionService.gradeSolutions(dto, user.id()));
+    }
+
+    // Очередь проверки: непроверенные решения по курсам преподавателя, старые первыми
+    @GetMapping("/queue")
+    public ResponseEntity<CursorPageDto<GradingQueueItemDto>> getGradingQueue(@RequestParam(required = false) String cursor,
+                                                                              @RequestParam(defaultValue = "20") int size,
+                                                                              @CurrentUser JwtPrincipal user) {
+        checkWorker(user);
+        return ResponseEntity.ok(gradingQueueService.getQueue(user.id(), cursor, size));
+    }
+
+    // Взять в работу следующие решения из очереди: другим преподавателям они не выдаются до конца аренды
+    @PostMapping("/queue/lease")
+    public ResponseEntity<List<GradingQueueItemDto>> leaseSolutions(@RequestParam(defaultValue = "1") int size,
+                                                                    @CurrentUser JwtPrincipal user) {
+        checkWorker(user);
+        return ResponseEntity.ok(gradingQueueService.lease(user.id(), size));
+    }
+
+    // Вернуть решение в очередь без оценки
+    @DeleteMapping("/{solutionId}/lease")
+    public ResponseEntity<?> releaseSolution(@PathVariable Integer solutionId, @CurrentUser JwtPrincipal user) {
+        checkWorker(user);
+        if (!gradingQueueService.release(user.id(), solutionId)) {
+            return ResponseEntity.status(404).body("Lease not found");
+        }
+        return ResponseEntity.ok("Lease released");
+    }
 
     // Получения списка решений по айди задачи
     @GetMapping("/{assignmentId}")
@@ -36,25 +76,10 @@ public class SolutionController {
     }
 
     @GetMapping("/my")
-    public ResponseEntity<?> getMyRequests(HttpServletRequest request) {
+    public ResponseEntity<?> getMyRequests(@CurrentUser JwtPrincipal user) {
         try {
-            // Получаем токен из заголовка Authorization
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-
-            // Проверяем валидность токена
-            if (!jwtCore.validateToken(token)) {
-                return  ResponseEntity.status(401).body("Invalid token");
-            }
-
-            Integer studentId = jwtCore.getUserIdFromToken(token);
-
             // Получаем заявки студента
-            List<SolutionsDto> solutions = solutionService.getSolutionsByStudentId(studentId);
+            List<SolutionsDto> solutions = solutionService.getSolutionsByStudentId(user.id());
             return ResponseEntity.ok(solutions);
 
         } catch (Exception e) {
@@ -66,29 +91,10 @@ public class SolutionController {
     @PostMapping("/add")
     public ResponseEntity<?> createRequest(
             @RequestBody SolutionsDto solutionsDto,
-            HttpServletRequest request) {
+            @CurrentUser JwtPrincipal user) {
         try {
-            // Получаем токен из заголовка Authorization
-            String authHeader = request.getHeader("Authorization");
-            if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-                return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-            }
-
-            String token = authHeader.substring(7);
-
-            // Проверяем валидность токена
-            if (!jwtCore.validateToken(token)) {
-                return ResponseEntity.status(401).body("Invalid token");
-            }
-
-            Integer studentId = jwtCore.getUserIdFromToken(token);
-
-            if (studentId == null) {
-                return ResponseEntity.status(403).body("Student ID not found in token");
-            }
-
             // Создаем заявку
-            SolutionsDto createdSolution = solutionService.addSolution(solutionsDto, studentId.longValue());
+            SolutionsDto createdSolution = solutionService.addSolution(solutionsDto, user.id().longValue());
             return ResponseEntity.ok(createdSolution);
 
         } catch (Exception e) {
@@ -100,36 +106,37 @@ public class SolutionController {
     @PutMapping("/{solutionId}/grade")
     public ResponseEntity<?> updateRequest(@PathVariable Integer solutionId,
                                            @RequestBody Map<String, String> requestBody,
-                                           HttpServletRequest request) {
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-        }
-
-        String token = authHeader.substring(7);
-
-        // Проверяем валидность токена
-        if (!jwtCore.validateToken(token)) {
-            return  ResponseEntity.status(401).body("Invalid token");
-        }
-
-        // Извлекаем ID работника из токена
-        Integer workerId = jwtCore.getUserIdFromToken(token);
-        Worker worker = workerRepository.findById(workerId);
+                                           @CurrentUser JwtPrincipal user) {
+        Worker worker = workerRepository.findById(user.id());
 
         Solution updateSolution = solutionRepository.findById(solutionId).orElse(null);
         if (updateSolution == null) {
             return ResponseEntity.status(404).body("Request not found");
         }
 
+        if (!gradingQueueService.finishGrading(user.id(), solutionId)) {
+            return ResponseEntity.status(409).body("Solution is being graded by another teacher");
+        }
+
         Integer score = Integer.valueOf(requestBody.get("solutionScore"));
+        Integer previousScore = updateSolution.getSolutionScore();
 
         updateSolution.setSolutionScore(score);
         updateSolution.setWorker(worker);
 
         solutionRepository.save(updateSolution);
+        statsService.solutionsGraded(List.of(new AssignmentStatsService.Grade(
+                updateSolution.getAssignment().getId(), previousScore, score)));
+        // Оценённое задание засчитывается в прогресс студента
+        completionService.completeAssignment(updateSolution.getStudent().getId(),
+                updateSolution.getAssignment().getId());
 
         return ResponseEntity.ok(new SolutionsDto(updateSolution));
     }
 
+    private static void checkWorker(JwtPrincipal user) {
+        if (!"WORKER".equals(user.userType())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Grading queue is available to teachers only");
+        }
+    }
 }
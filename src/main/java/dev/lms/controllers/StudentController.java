@@ -1,18 +1,23 @@
 package dev.lms.controllers;
 
+import dev.lms.dto.StudentImportReportDto;
 import dev.lms.dto.StudentListDto;
+import dev.lms.jwt.CurrentUser;
+import dev.lms.jwt.JwtPrincipal;
 import dev.lms.models.Request;
 import dev.lms.models.Student;
 import dev.lms.repository.StudentRepository;
 import dev.lms.service.RequestService;
+import dev.lms.service.StudentImportService;
 import dev.lms.service.StudentService;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -22,11 +27,14 @@ public class StudentController {
     private final StudentService studentService;
     private final StudentRepository studentRepository;
     private final PasswordEncoder passwordEncoder;
+    private final StudentImportService studentImportService;
 
-    public StudentController(StudentService studentService, StudentRepository studentRepository, PasswordEncoder passwordEncoder) {
+    public StudentController(StudentService studentService, StudentRepository studentRepository, PasswordEncoder passwordEncoder,
+                             StudentImportService studentImportService) {
         this.studentService = studentService;
         this.studentRepository = studentRepository;
         this.passwordEncoder = passwordEncoder;
+        this.studentImportService = studentImportService;
     }
 
     @GetMapping("/profile/{studentId}")
@@ -44,10 +52,8 @@ public class StudentController {
     }
 
     @GetMapping("/profile")
-    public ResponseEntity<StudentProfileDto> getMyProfile(Authentication authentication) {
-        String email = authentication.getName();
-
-        Student student = studentRepository.findByEmail(email)
+    public ResponseEntity<StudentProfileDto> getMyProfile(@CurrentUser JwtPrincipal user) {
+        Student student = studentRepository.findByEmail(user.email())
                 .orElseThrow(() -> new UsernameNotFoundException("Student not found"));
 
         return ResponseEntity.ok(new StudentProfileDto(
@@ -89,6 +95,20 @@ public class StudentController {
         return ResponseEntity.ok(createStudent);
     }
 
+    // Массовый импорт студентов и заявок на курсы из CSV
+    @PostMapping("/import")
+    public ResponseEntity<?> importStudents(@RequestParam("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is empty");
+        }
+        try {
+            StudentImportReportDto report = studentImportService.importStudents(file.getInputStream());
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @DeleteMapping("/{studentId}/delete")
     public ResponseEntity<?> deleteStudent(@PathVariable Long studentId){
         studentService.deleteStudent(studentId);
@@ -1,20 +1,26 @@
 package dev.lms.controllers;
 
 import dev.lms.dto.*;
-import dev.lms.jwt.JwtCore;
+import dev.lms.jwt.CurrentUser;
+import dev.lms.jwt.JwtPrincipal;
 import dev.lms.models.EducationMaterial;
 import dev.lms.models.Group;
 import dev.lms.models.StudyingProgress;
 import dev.lms.models.StudyingStatus;
 import dev.lms.repository.GroupRepository;
 import dev.lms.repository.StudyingProgressRepository;
-import dev.lms.repository.StudyingStatusRepository;
+import dev.lms.export.ExportFormat;
+import dev.lms.service.ExportService;
+import dev.lms.service.ProgressDashboardService;
+import dev.lms.service.ReferenceDataRegistry;
+import dev.lms.service.StudyingCompletionService;
 import dev.lms.service.StudyingProgressService;
-import io.jsonwebtoken.Jwts;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.Map;
@@ -25,66 +31,42 @@ import java.util.Map;
 public class StudyingProgressController {
     private final StudyingProgressService progressService;
     private final GroupRepository groupRepository;
-    private final JwtCore jwtCore;
     private final StudyingProgressRepository studyingProgressRepository;
-    private final StudyingStatusRepository studyingStatusRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final ExportService exportService;
+    private final StudyingCompletionService completionService;
+    private final ProgressDashboardService dashboardService;
 
     //Получение прогресса по айди курса
     @GetMapping("/{courseId}")
     public ResponseEntity<?> getProgress(
             @PathVariable Integer courseId,
-            HttpServletRequest request) {
-        // Получаем токен из заголовка Authorization
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-        }
-
-        String token = authHeader.substring(7);
-
-        // Проверяем валидность токена
-        if (!jwtCore.validateToken(token)) {
-            return  ResponseEntity.status(401).body("Invalid token");
-        }
-
-        // Извлекаем ID студента из токена
-        Integer studentId = jwtCore.getUserIdFromToken(token);
-
-        if (studentId == null) {
-            return ResponseEntity.status(403).body("Student ID not found in token");
-        }
-
-        StudyingProgressDto progress = progressService.getProgress(studentId, courseId);
+            @CurrentUser JwtPrincipal user) {
+        StudyingProgressDto progress = progressService.getProgress(user.id(), courseId);
         return ResponseEntity.ok(progress);
     }
 
     @PostMapping
     public ResponseEntity<?> updateProgress(
             @RequestBody StudyingProgressDto progressDto,
-            HttpServletRequest request) {
-
-        // Получаем токен из заголовка Authorization
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-        }
-
-        String token = authHeader.substring(7);
-
-        // Проверяем валидность токена
-        if (!jwtCore.validateToken(token)) {
-            return  ResponseEntity.status(401).body("Invalid token");
-        }
-
-        // Извлекаем ID студента из токена
-        Integer studentId = jwtCore.getUserIdFromToken(token);
+            @CurrentUser JwtPrincipal user) {
+        progressService.updateProgress(user.id(), progressDto);
+        return ResponseEntity.ok().build();
+    }
 
-        if (studentId == null) {
-            return ResponseEntity.status(403).body("Student ID not found in token");
-        }
+    // Студент прошёл материал курса: процент считается по числу пройденных материалов и оценённых заданий
+    @PostMapping("/materials/{materialId}/complete")
+    public ResponseEntity<StudyingProgressDto> completeMaterial(@PathVariable Integer materialId,
+                                                                @CurrentUser JwtPrincipal user) {
+        StudyingCompletionService.Enrolment enrolment = completionService.completeMaterial(user.id(), materialId);
+        return ResponseEntity.ok(progressService.getProgress(user.id(), enrolment.courseId()));
+    }
 
-        progressService.updateProgress(studentId, progressDto);
-        return ResponseEntity.ok().build();
+    // Пересчёт счётчиков прогресса по материалам и оценённым решениям
+    @PostMapping("/rebuild")
+    public ResponseEntity<ProgressRebuildReportDto> rebuildProgress(@CurrentUser JwtPrincipal user) {
+        checkStaff(user);
+        return ResponseEntity.ok(completionService.rebuild());
     }
 
     //Получение списка студентов по группе с прогрессом
@@ -100,30 +82,42 @@ public class StudyingProgressController {
         return ResponseEntity.ok(students);
     }
 
-    //Получение списка курсов с прогрессом
-    @GetMapping("/my-courses")
-    public ResponseEntity<?> getCoursesWithProgress(HttpServletRequest request) {
-        // Получаем токен из заголовка Authorization
-        String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return ResponseEntity.status(401).body("Missing or invalid Authorization header");
-        }
-
-        String token = authHeader.substring(7);
-
-        // Проверяем валидность токена
-        if (!jwtCore.validateToken(token)) {
-            return  ResponseEntity.status(401).body("Invalid token");
+    // Выгрузка прогресса группы в CSV/XLSX
+    @GetMapping("/groups/{selectedGroup}/students/export")
+    public ResponseEntity<?> exportStudentsByGroup(@PathVariable Integer selectedGroup,
+                                                   @RequestParam(defaultValue = "csv") String format,
+                                                   @CurrentUser JwtPrincipal user) {
+        exportService.checkAccess(user);
+        if (!groupRepository.existsById(selectedGroup)) {
+            return ResponseEntity.status(404).body("Group not found");
         }
+        ExportFormat exportFormat = ExportFormat.of(format);
+        return exportFormat.attachment("group-" + selectedGroup + "-progress",
+                exportService.exportGroupProgress(selectedGroup, exportFormat));
+    }
 
-        // Извлекаем ID студента из токена
-        Integer studentId = jwtCore.getUserIdFromToken(token);
+    // Сводка прогресса группы: средний и медианный процент, гистограмма, статусы, отстающие студенты
+    @GetMapping("/groups/{groupId}/dashboard")
+    public ResponseEntity<ProgressDashboardDto> getGroupDashboard(@PathVariable Integer groupId,
+                                                                  @RequestParam(defaultValue = "5") int slowest,
+                                                                  @CurrentUser JwtPrincipal user) {
+        checkStaff(user);
+        return ResponseEntity.ok(dashboardService.getDashboard(ProgressDashboardService.Scope.GROUP, groupId, slowest));
+    }
 
-        if (studentId == null) {
-            return ResponseEntity.status(403).body("Student ID not found in token");
-        }
+    // Сводка прогресса по всем студентам курса
+    @GetMapping("/courses/{courseId}/dashboard")
+    public ResponseEntity<ProgressDashboardDto> getCourseDashboard(@PathVariable Integer courseId,
+                                                                   @RequestParam(defaultValue = "5") int slowest,
+                                                                   @CurrentUser JwtPrincipal user) {
+        checkStaff(user);
+        return ResponseEntity.ok(dashboardService.getDashboard(ProgressDashboardService.Scope.COURSE, courseId, slowest));
+    }
 
-        List<CourseWithProgressDto> courses = progressService.getCoursesWithProgress(studentId);
+    //Получение списка курсов с прогрессом
+    @GetMapping("/my-courses")
+    public ResponseEntity<?> getCoursesWithProgress(@CurrentUser JwtPrincipal user) {
+        List<CourseWithProgressDto> courses = progressService.getCoursesWithProgress(user.id());
 
         return ResponseEntity.ok(courses);
     }
@@ -138,14 +132,20 @@ public class StudyingProgressController {
             return ResponseEntity.status(404).body("Progress not found");
         }
 
-        StudyingStatus status = studyingStatusRepository.findByName(requestBody.get("status"));
+        StudyingStatus status = referenceData.studyingStatus(requestBody.get("status")).orElse(null);
 
         progress.setStatus(status);
 
         studyingProgressRepository.save(progress);
+        dashboardService.invalidateCourse(progress.getRequest().getCourse().getId());
         StudyingProgressDto progressDto = new StudyingProgressDto(progress);
 
         return ResponseEntity.ok(progressDto);
     }
 
+    private static void checkStaff(JwtPrincipal user) {
+        if ("STUDENT".equals(user.userType())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Available to staff only");
+        }
+    }
 }
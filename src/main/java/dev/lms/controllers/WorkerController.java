@@ -5,7 +5,7 @@ import dev.lms.models.Student;
 import dev.lms.models.Worker;
 import dev.lms.models.WorkerRole;
 import dev.lms.repository.WorkerRepository;
-import dev.lms.repository.WorkerRoleRepository;
+import dev.lms.service.ReferenceDataRegistry;
 import dev.lms.service.StudentService;
 import dev.lms.service.WorkerService;
 import io.jsonwebtoken.security.Password;
@@ -24,7 +24,7 @@ import java.util.Map;
 public class WorkerController {
     private final WorkerService workerService;
     private final WorkerRepository workerRepository;
-    private final WorkerRoleRepository workerRoleRepository;
+    private final ReferenceDataRegistry referenceData;
     private final PasswordEncoder passwordEncoder;
 
 
@@ -45,7 +45,7 @@ public class WorkerController {
         Worker createWorker = new Worker();
 
         String roleName = requestBody.get("role");
-        WorkerRole role = workerRoleRepository.findByName(roleName);
+        WorkerRole role = referenceData.workerRole(roleName).orElse(null);
 
         createWorker.setFirstName(requestBody.get("firstName"));
         createWorker.setLastName(requestBody.get("lastName"));
@@ -68,7 +68,7 @@ public class WorkerController {
         }
 
         String roleName = requestBody.get("role");
-        WorkerRole role = workerRoleRepository.findByName(roleName);
+        WorkerRole role = referenceData.workerRole(roleName).orElse(null);
 
         updateWorker.setFirstName(requestBody.get("firstName"));
         updateWorker.setLastName(requestBody.get("lastName"));
@@ -0,0 +1,23 @@
+package dev.lms.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Статистика по заданию из счётчиков: решения, оценки, опоздания и студенты курса без решений
+public record AssignmentStatsDto(Integer assignmentId,
+                                 Integer courseId,
+                                 LocalDateTime deadline,
+                                 long submissions,
+                                 long graded,
+                                 long ungraded,
+                                 Double averageScore,
+                                 List<ScoreCount> scoreDistribution,
+                                 long lateSubmissions,
+                                 long students,
+                                 long studentsSubmitted,
+                                 long missingStudents) {
+
+    // Число оценённых решений с баллом score
+    public record ScoreCount(int score, long count) {
+    }
+}
@@ -0,0 +1,7 @@
+package dev.lms.dto;
+
+import java.util.List;
+
+// Итог сверки счётчиков заданий с таблицей решений: задания, у которых счётчики были исправлены
+public record AssignmentStatsRepairReportDto(int repaired, List<Integer> assignmentIds) {
+}
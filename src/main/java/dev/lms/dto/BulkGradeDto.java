@@ -0,0 +1,21 @@
+package dev.lms.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+// Оценки для набора решений: балл и, при необходимости, новый статус решения
+@Getter
+@Setter
+public class BulkGradeDto {
+    private List<Item> grades;
+
+    @Getter
+    @Setter
+    public static class Item {
+        private Integer solutionId;
+        private Integer solutionScore;
+        private Integer statusId;
+    }
+}
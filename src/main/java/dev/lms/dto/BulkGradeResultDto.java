@@ -0,0 +1,18 @@
+package dev.lms.dto;
+
+import java.util.List;
+
+// Итог массовой оценки по каждому решению
+public record BulkGradeResultDto(int graded, List<Outcome> outcomes) {
+
+    public enum Result {
+        GRADED,
+        NOT_FOUND,
+        STATUS_NOT_FOUND,
+        INVALID_SCORE,
+        LEASED_BY_ANOTHER_TEACHER
+    }
+
+    public record Outcome(Integer solutionId, Result result) {
+    }
+}
@@ -0,0 +1,15 @@
+package dev.lms.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+// Одно решение для набора заявок: новый статус и, при необходимости, группа
+@Getter
+@Setter
+public class BulkRequestDecisionDto {
+    private List<Integer> requestIds;
+    private Integer statusId;
+    private Integer groupId;
+}
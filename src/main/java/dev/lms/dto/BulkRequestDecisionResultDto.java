@@ -0,0 +1,17 @@
+package dev.lms.dto;
+
+import java.util.List;
+
+// Итог массового решения по каждой заявке
+public record BulkRequestDecisionResultDto(int updated, int progressCreated, List<Outcome> outcomes) {
+
+    public enum Result {
+        UPDATED,
+        NOT_FOUND,
+        GROUP_COURSE_MISMATCH,
+        GROUP_FULL
+    }
+
+    public record Outcome(Integer requestId, Result result, boolean progressCreated) {
+    }
+}
@@ -0,0 +1,23 @@
+package dev.lms.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+// Фильтры каталога курсов, все поля необязательные
+@Getter
+@Setter
+public class CourseFilterDto {
+    private Integer categoryId;
+    private Integer statusId;
+    private String studyDirection;
+    // Курсы, которые начинаются не раньше startFrom и заканчиваются не позже endTo
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime startFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime endTo;
+    private Integer minHours;
+    private Integer maxHours;
+}
@@ -0,0 +1,16 @@
+package dev.lms.dto;
+
+import java.util.List;
+
+// Результат поиска по каталогу: найденные курсы по убыванию релевантности и счётчики фасетов
+public record CourseSearchResultDto(int total,
+                                    List<Hit> hits,
+                                    List<FacetCount> categories,
+                                    List<FacetCount> statuses) {
+
+    public record Hit(CourseShortDto course, double score) {
+    }
+
+    public record FacetCount(Integer id, String name, long count) {
+    }
+}
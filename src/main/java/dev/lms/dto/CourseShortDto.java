@@ -24,4 +24,15 @@ public class CourseShortDto {
         this.hoursCount = course.getHoursCount();
         this.status = course.getStatus().getName();
     }
+
+    // Конструктор для проекций в запросах постраничного каталога
+    public CourseShortDto(Integer id, String name, String studyDirection, LocalDateTime startDate,
+                          Integer hoursCount, String status) {
+        this.id = id;
+        this.name = name;
+        this.studyDirection = studyDirection;
+        this.startDate = startDate;
+        this.hoursCount = hoursCount;
+        this.status = status;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package dev.lms.dto;
+
+import java.util.List;
+
+// Всё, что нужно странице курса, одним ответом. progress = null для анонимного пользователя,
+// работника или студента без прогресса по курсу
+public record CourseWorkspaceDto(CourseDetailsDto course,
+                                 List<EducationMaterialDto> materials,
+                                 List<AssignmentWithFiles> assignments,
+                                 List<GroupDto> groups,
+                                 StudyingProgressDto progress) {
+
+    public record AssignmentWithFiles(AssignmentDto assignment, List<AttachedFileDto> files) {
+    }
+}
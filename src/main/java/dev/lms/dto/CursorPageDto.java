@@ -0,0 +1,7 @@
+package dev.lms.dto;
+
+import java.util.List;
+
+// Страница keyset-пагинации: nextCursor = null, если это последняя страница
+public record CursorPageDto<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,18 @@
+package dev.lms.dto;
+
+import java.time.LocalDateTime;
+
+// Решение в очереди проверки преподавателя. leaseExpiresAt заполнено, если решение арендовано этим преподавателем
+public record GradingQueueItemDto(Integer solutionId,
+                                  LocalDateTime sendingDate,
+                                  String solutionComment,
+                                  Integer assignmentId,
+                                  String assignmentName,
+                                  Integer courseId,
+                                  String courseName,
+                                  Integer studentId,
+                                  String studentFirstName,
+                                  String studentMiddleName,
+                                  String studentLastName,
+                                  LocalDateTime leaseExpiresAt) {
+}
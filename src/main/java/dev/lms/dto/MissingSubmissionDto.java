@@ -0,0 +1,12 @@
+package dev.lms.dto;
+
+import java.time.LocalDateTime;
+
+// Студент без решения к сроку задания
+public record MissingSubmissionDto(Integer requestId,
+                                   Integer studentId,
+                                   String surname,
+                                   String name,
+                                   String secondName,
+                                   LocalDateTime markedAt) {
+}
@@ -0,0 +1,26 @@
+package dev.lms.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Сводка прогресса по группе или курсу: считается в базе одним запросом, без списка студентов
+public record ProgressDashboardDto(String scope,
+                                   Integer id,
+                                   Integer courseId,
+                                   long students,
+                                   Double averagePercent,
+                                   Double medianPercent,
+                                   long graduated,
+                                   List<Bucket> histogram,
+                                   Map<String, Long> statusCounts,
+                                   List<Learner> slowest) {
+
+    // Интервал процента [from, to]; последний интервал включает 100
+    public record Bucket(int from, int to, long count) {
+    }
+
+    public record Learner(Integer requestId, Integer studentId, String surname, String name, String secondName,
+                          Integer percent, String status, LocalDateTime educationStartDate) {
+    }
+}
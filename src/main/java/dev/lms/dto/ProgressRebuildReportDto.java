@@ -0,0 +1,6 @@
+package dev.lms.dto;
+
+// Итог пересчёта прогресса: сколько курсов пересчитано и сколько элементов засчитано задним числом
+public record ProgressRebuildReportDto(int courses, int assignmentCompletions, int materialCompletions,
+                                       int progressRows) {
+}
@@ -0,0 +1,22 @@
+package dev.lms.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+// Фильтры очереди заявок, все поля необязательные
+@Getter
+@Setter
+public class RequestFilterDto {
+    private Integer statusId;
+    private Integer courseId;
+    private Integer groupId;
+    // Только заявки без группы
+    private boolean unassigned;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+}
@@ -0,0 +1,44 @@
+package dev.lms.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// Строка очереди заявок администратора, заполняется проекцией без загрузки сущностей
+@Getter
+public class RequestQueueItemDto {
+    private final Integer id;
+    private final LocalDateTime createTime;
+    private final LocalDateTime processingTime;
+    private final Integer statusId;
+    private final String status;
+    private final Integer courseId;
+    private final String courseName;
+    private final Integer groupId;
+    private final String groupName;
+    private final Integer studentId;
+    private final String studentFirstName;
+    private final String studentMiddleName;
+    private final String studentLastName;
+
+    public RequestQueueItemDto(Integer id, LocalDateTime createTime, LocalDateTime processingTime,
+                               Integer statusId, String status,
+                               Integer courseId, String courseName,
+                               Integer groupId, String groupName,
+                               Integer studentId, String studentFirstName, String studentMiddleName,
+                               String studentLastName) {
+        this.id = id;
+        this.createTime = createTime;
+        this.processingTime = processingTime;
+        this.statusId = statusId;
+        this.status = status;
+        this.courseId = courseId;
+        this.courseName = courseName;
+        this.groupId = groupId;
+        this.groupName = groupName;
+        this.studentId = studentId;
+        this.studentFirstName = studentFirstName;
+        this.studentMiddleName = studentMiddleName;
+        this.studentLastName = studentLastName;
+    }
+}
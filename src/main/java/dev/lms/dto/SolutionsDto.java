@@ -23,6 +23,7 @@ public class SolutionsDto {
     private String studentMiddleName;
     private String studentLastName;
     private Integer statusId;
+    private Boolean late;
 
     public SolutionsDto(Solution solution) {
         this.id = solution.getId();
@@ -37,6 +38,7 @@ public class SolutionsDto {
         this.studentMiddleName = solution.getStudent().getMiddleName();
         this.studentLastName = solution.getStudent().getLastName();
         this.statusId =  solution.getStatus().getId();
+        this.late = solution.getLate();
     }
 
     public SolutionsDto(SolutionsDto solutionsDto) {
@@ -0,0 +1,20 @@
+package dev.lms.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class StudentImportReportDto {
+    private int totalRows;
+    private int studentsCreated;
+    private int existingStudents;
+    private int requestsCreated;
+    private List<RowError> errors = new ArrayList<>();
+
+    public record RowError(long line, String email, String message) {
+    }
+}
@@ -4,7 +4,6 @@ import dev.lms.models.StudyingProgress;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
@@ -25,4 +24,15 @@ public class StudyingProgressDto {
         this.startDate = progress.getEducationStartDate();
         this.graduationDate = progress.getGraduationDate();
     }
+
+    // Проекция StudyingProgressRepository.findProgressView, без загрузки сущностей
+    public StudyingProgressDto(Integer studyingProgressId, Integer courseId, Integer percent,
+                               LocalDateTime startDate, LocalDateTime graduationDate, String status) {
+        this.studyingProgressId = studyingProgressId;
+        this.courseId = courseId;
+        this.percent = percent;
+        this.startDate = startDate;
+        this.graduationDate = graduationDate;
+        this.status = status;
+    }
 }
@@ -0,0 +1,55 @@
+package dev.lms.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// CSV через ";" с BOM, чтобы Excel с русской локалью сразу открывал файл по столбцам
+public class CsvTableWriter implements TableWriter {
+    private static final char DELIMITER = ';';
+
+    private final Writer writer;
+
+    public CsvTableWriter(OutputStream out) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write('\uFEFF');
+    }
+
+    @Override
+    public void writeRow(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(DELIMITER);
+            }
+            writeCell(values.get(i));
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCell(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        // Текст из заявок и анкет, начинающийся с =, +, - или @, Excel выполнил бы как формулу
+        if (value instanceof CharSequence && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(DELIMITER) < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+}
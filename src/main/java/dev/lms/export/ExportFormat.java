@@ -0,0 +1,58 @@
+package dev.lms.export;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public enum ExportFormat {
+    CSV("text/csv; charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String fileName(String baseName) {
+        return baseName + "." + extension;
+    }
+
+    // Ответ-вложение: тело пишется в поток уже после возврата из контроллера
+    public ResponseEntity<StreamingResponseBody> attachment(String baseName, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName(baseName), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    public TableWriter open(OutputStream out, String sheetName) throws IOException {
+        return this == CSV ? new CsvTableWriter(out) : new XlsxTableWriter(out, sheetName);
+    }
+
+    public static ExportFormat of(String value) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + value);
+    }
+}
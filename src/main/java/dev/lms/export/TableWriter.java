@@ -0,0 +1,10 @@
+package dev.lms.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+// Построчная запись таблицы в поток ответа; первая строка - заголовок
+public interface TableWriter extends Closeable {
+    void writeRow(List<?> values) throws IOException;
+}
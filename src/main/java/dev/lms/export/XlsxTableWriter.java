@@ -0,0 +1,129 @@
+package dev.lms.export;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Минимальный XLSX из одного листа. Служебные части пишутся сразу, строки листа идут
+// в zip-поток по мере чтения из БД, поэтому память не зависит от числа строк.
+// Строки пишутся как inline-строки без таблицы общих строк, числа - числами
+public class XlsxTableWriter implements TableWriter {
+    private static final String CONTENT_TYPES = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Types xmlns="http://schemas.openxmlformats.org/package/2006/content-types">
+            <Default Extension="rels" ContentType="application/vnd.openxmlformats-package.relationships+xml"/>
+            <Default Extension="xml" ContentType="application/xml"/>
+            <Override PartName="/xl/workbook.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml"/>
+            <Override PartName="/xl/worksheets/sheet1.xml" ContentType="application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml"/>
+            </Types>""";
+    private static final String ROOT_RELS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">
+            <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument" Target="xl/workbook.xml"/>
+            </Relationships>""";
+    private static final String WORKBOOK = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <workbook xmlns="http://schemas.openxmlformats.org/spreadsheetml/2006/main" xmlns:r="http://schemas.openxmlformats.org/officeDocument/2006/relationships">
+            <sheets><sheet name="%s" sheetId="1" r:id="rId1"/></sheets>
+            </workbook>""";
+    private static final String WORKBOOK_RELS = """
+            <?xml version="1.0" encoding="UTF-8" standalone="yes"?>
+            <Relationships xmlns="http://schemas.openxmlformats.org/package/2006/relationships">
+            <Relationship Id="rId1" Type="http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet" Target="worksheets/sheet1.xml"/>
+            </Relationships>""";
+
+    private final ZipOutputStream zip;
+    private final Writer writer;
+
+    public XlsxTableWriter(OutputStream out, String sheetName) throws IOException {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        // Писатель не должен закрывать zip-поток при закрытии
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FilterOutputStream(zip) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                zip.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        }, StandardCharsets.UTF_8), 64 * 1024);
+
+        writeEntry("[Content_Types].xml", CONTENT_TYPES);
+        writeEntry("_rels/.rels", ROOT_RELS);
+        writeEntry("xl/workbook.xml", WORKBOOK.formatted(escape(sheetName)));
+        writeEntry("xl/_rels/workbook.xml.rels", WORKBOOK_RELS);
+
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" +
+                "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+    }
+
+    @Override
+    public void writeRow(List<?> values) throws IOException {
+        writer.write("<row>");
+        for (Object value : values) {
+            if (value == null) {
+                writer.write("<c/>");
+            } else if (value instanceof Number number) {
+                writer.write("<c><v>");
+                writer.write(number.toString());
+                writer.write("</v></c>");
+            } else {
+                writer.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                writer.write(escape(value.toString()));
+                writer.write("</t></is></c>");
+            }
+        }
+        writer.write("</row>");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    // Экранирование XML; управляющие символы, недопустимые в XML 1.0, отбрасываются
+    private static String escape(String text) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            String replacement = switch (ch) {
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '&' -> "&amp;";
+                case '"' -> "&quot;";
+                default -> ch < 0x20 && ch != '\t' && ch != '\n' && ch != '\r' ? "" : null;
+            };
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(ch);
+                }
+            }
+        }
+        return escaped != null ? escaped.toString() : text;
+    }
+}
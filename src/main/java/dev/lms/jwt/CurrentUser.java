@@ -0,0 +1,14 @@
+package dev.lms.jwt;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Подставляет в параметр контроллера JwtPrincipal, проверенный в JwtFilter
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUser {
+    // false - для анонимного запроса параметр получает null вместо ответа 401
+    boolean required() default true;
+}
@@ -1,6 +1,7 @@
 package dev.lms.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -15,14 +16,26 @@ import java.util.Map;
 @Component
 public class JwtCore {
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final Long expiration;
 
-    @Value("${jwt.expiration}")
-    private Long expiration;
+    // Ключ и парсер потокобезопасны, поэтому создаются один раз
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final VerifiedTokenCache verifiedTokens;
+
+    public JwtCore(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.expiration}") Long expiration,
+                   @Value("${jwt.cache.max-size:10000}") int cacheMaxSize) {
+        this.expiration = expiration;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        this.verifiedTokens = new VerifiedTokenCache(cacheMaxSize);
+    }
 
     public SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
     }
 
     public String generateToken(String email, Integer userId, String userType, String role) {
@@ -36,25 +49,40 @@ public class JwtCore {
                 .setSubject(email)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration * 1000))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    // Проверка подписи выполняется один раз на токен, повторные запросы берут данные из кэша
+    public JwtPrincipal parseToken(String token) {
+        VerifiedTokenCache.TokenDigest key = VerifiedTokenCache.digest(token);
+        JwtPrincipal principal = verifiedTokens.get(key);
+        if (principal == null) {
+            principal = verify(token);
+            verifiedTokens.put(key, principal);
+        }
+        return principal;
+    }
+
+    JwtPrincipal verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Date expiresAt = claims.getExpiration();
+        return new JwtPrincipal(
+                claims.get("id", Integer.class),
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.get("userType", String.class),
+                expiresAt != null ? expiresAt.toInstant() : null
+        );
+    }
+
     public Integer getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("id", Integer.class);
+        return parseToken(token).id();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
+            parseToken(token);
             return true;
         } catch (Exception e) {
             return false;
@@ -62,29 +90,14 @@ public class JwtCore {
     }
 
     public String getRoleFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("role", String.class);
+        return parseToken(token).role();
     }
 
     public String getUserTypeFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("userType", String.class);
+        return parseToken(token).userType();
     }
 
     public String getEmailFromToken(String token) {
-        return Jwts.parser()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return parseToken(token).email();
     }
-}
\ No newline at end of file
+}
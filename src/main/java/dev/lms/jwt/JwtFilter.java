@@ -9,8 +9,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -30,36 +28,37 @@ public class JwtFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
-        final String jwtToken;
-
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwtToken = authHeader.substring(7);
-        Authentication auth = null;
-
-        if (jwtToken != null && jwtTokenUtil.validateToken(jwtToken)) {
-            String userType = jwtTokenUtil.getUserTypeFromToken(jwtToken);
+        String jwtToken = authHeader.substring(7);
+        JwtPrincipal principal = null;
+        try {
+            principal = jwtTokenUtil.parseToken(jwtToken);
+        } catch (Exception e) {
+            // Невалидный токен: запрос продолжается без аутентификации
+        }
 
-            if ("WORKER".equals(userType)) {
-                String role = jwtTokenUtil.getRoleFromToken(jwtToken);
+        if (principal != null) {
+            Authentication auth;
+            if ("WORKER".equals(principal.userType())) {
                 auth = new UsernamePasswordAuthenticationToken(
-                        jwtTokenUtil.getEmailFromToken(jwtToken),
+                        principal,
                         null,
-                        Collections.singleton(new SimpleGrantedAuthority("ROLE_" + role))
+                        Collections.singleton(new SimpleGrantedAuthority("ROLE_" + principal.role()))
                 );
             } else {
                 auth = new UsernamePasswordAuthenticationToken(
-                        jwtTokenUtil.getEmailFromToken(jwtToken),
+                        principal,
                         null,
                         Collections.emptyList()
                 );
             }
             SecurityContextHolder.getContext().setAuthentication(auth);
-            filterChain.doFilter(request, response);
         }
+        filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package dev.lms.jwt;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.time.Instant;
+
+// Данные пользователя, извлечённые из проверенного токена
+public record JwtPrincipal(Integer id, String email, String role, String userType, Instant expiresAt)
+        implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && !expiresAt.isAfter(Instant.now());
+    }
+}
@@ -0,0 +1,70 @@
+package dev.lms.jwt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Ограниченный кэш уже проверенных токенов. Ключ - SHA-256 от токена, запись живёт до exp
+class VerifiedTokenCache {
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final int maxSize;
+    private final Map<TokenDigest, JwtPrincipal> entries = new ConcurrentHashMap<>();
+
+    VerifiedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    static TokenDigest digest(String token) {
+        MessageDigest sha = SHA_256.get();
+        ByteBuffer hash = ByteBuffer.wrap(sha.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        return new TokenDigest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    JwtPrincipal get(TokenDigest key) {
+        JwtPrincipal principal = entries.get(key);
+        if (principal != null && principal.isExpired()) {
+            entries.remove(key, principal);
+            return null;
+        }
+        return principal;
+    }
+
+    void put(TokenDigest key, JwtPrincipal principal) {
+        if (maxSize <= 0) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(key, principal);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // Сначала удаляем просроченные токены, если места всё равно нет - освобождаем восьмую часть кэша
+    private void evict() {
+        entries.values().removeIf(JwtPrincipal::isExpired);
+        int toRemove = entries.size() - maxSize + Math.max(1, maxSize / 8);
+        Iterator<TokenDigest> iterator = entries.keySet().iterator();
+        while (toRemove-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    record TokenDigest(long h0, long h1, long h2, long h3) {
+    }
+}
@@ -30,6 +30,10 @@ public class Assignment {
     @Column(name = "deadline")
     private LocalDateTime deadline;
 
+    // Время обработки срока: отметки об опоздании и отсутствии решений. Колонку ведёт AssignmentDeadlineService
+    @Column(name = "deadline_processed_at", insertable = false, updatable = false)
+    private LocalDateTime deadlineProcessedAt;
+
     @Column(name = "is_essential")
     private Boolean isEssential = false;
 
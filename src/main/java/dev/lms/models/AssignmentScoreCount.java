@@ -0,0 +1,34 @@
+package dev.lms.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+// Распределение оценок по заданию: число оценённых решений с данным баллом
+@Entity
+@Table(name = "assignment_score_count", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_assignment_score", columnNames = {"assignment_id", "score"})
+})
+@Getter
+@Setter
+public class AssignmentScoreCount {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "score_count_id")
+    private Integer id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "assignment_id", nullable = false)
+    private Assignment assignment;
+
+    @Column(name = "score", nullable = false)
+    private Integer score;
+
+    @ColumnDefault("0")
+    @Column(name = "solution_count", nullable = false, insertable = false, updatable = false)
+    private Integer solutionCount;
+}
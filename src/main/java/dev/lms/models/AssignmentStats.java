@@ -0,0 +1,46 @@
+package dev.lms.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+// Счётчики решений по заданию, колонки ведёт AssignmentStatsService
+@Entity
+@Table(name = "assignment_stats")
+@Getter
+@Setter
+public class AssignmentStats {
+    @Id
+    @Column(name = "assignment_id")
+    private Integer assignmentId;
+
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @MapsId
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "assignment_id")
+    private Assignment assignment;
+
+    @ColumnDefault("0")
+    @Column(name = "submission_count", nullable = false, insertable = false, updatable = false)
+    private Integer submissionCount;
+
+    @ColumnDefault("0")
+    @Column(name = "graded_count", nullable = false, insertable = false, updatable = false)
+    private Integer gradedCount;
+
+    @ColumnDefault("0")
+    @Column(name = "score_sum", nullable = false, insertable = false, updatable = false)
+    private Long scoreSum;
+
+    @ColumnDefault("0")
+    @Column(name = "late_count", nullable = false, insertable = false, updatable = false)
+    private Integer lateCount;
+
+    // Студенты, отправившие хотя бы одно решение
+    @ColumnDefault("0")
+    @Column(name = "student_count", nullable = false, insertable = false, updatable = false)
+    private Integer studentCount;
+}
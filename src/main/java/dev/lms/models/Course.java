@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -39,6 +40,18 @@ public class Course {
     @Column(name = "hours_count", nullable = false)
     private Integer hoursCount;
 
+    // Число материалов и заданий курса для расчёта прогресса, счётчик ведёт StudyingCompletionService
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "progress_item_count", nullable = false, insertable = false, updatable = false)
+    private Integer progressItemCount;
+
+    // Версия содержимого страницы курса для ETag, увеличивает CourseWorkspaceService.contentChanged
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "workspace_version", nullable = false, insertable = false, updatable = false)
+    private Long workspaceVersion;
+
     @Column(name = "result_competence", nullable = false, length = 200)
     private String resultCompetence;
 
@@ -0,0 +1,37 @@
+package dev.lms.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+// Студент курса не отправил решение к сроку задания. Строки ставит AssignmentDeadlineService,
+// при отправке решения после срока отметка снимается
+@Entity
+@Table(name = "missing_submission", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_missing_submission", columnNames = {"assignment_id", "request_id"})
+})
+@Getter
+@Setter
+public class MissingSubmission {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "missing_id")
+    private Integer id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "assignment_id", nullable = false)
+    private Assignment assignment;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JoinColumn(name = "request_id", nullable = false)
+    private Request request;
+
+    @Column(name = "marked_at", nullable = false)
+    private LocalDateTime markedAt;
+}
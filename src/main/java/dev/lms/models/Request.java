@@ -7,7 +7,8 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "request")
+@Table(name = "request", uniqueConstraints =
+        @UniqueConstraint(name = "uq_request_student_course", columnNames = {"student_id", "course_id"}))
 @Getter
 @Setter
 public class Request {
@@ -3,6 +3,7 @@ package dev.lms.models;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -45,4 +46,16 @@ public class Solution {
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "solution_status_id", nullable = false)
     private SolutionStatus status;
+
+    // Аренда решения в очереди проверки, колонки ведёт GradingQueueService
+    @Column(name = "lease_worker_id", insertable = false, updatable = false)
+    private Integer leaseWorkerId;
+
+    @Column(name = "lease_expires_at", insertable = false, updatable = false)
+    private LocalDateTime leaseExpiresAt;
+
+    // Решение отправлено после срока задания
+    @ColumnDefault("false")
+    @Column(name = "is_late", nullable = false, insertable = false, updatable = false)
+    private Boolean late;
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package dev.lms.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Пройденный элемент курса: материал или задание с оценкой. Одна строка на элемент и заявку
+@Entity
+@Table(name = "studying_completion", uniqueConstraints = {
+        @UniqueConstraint(name = "uq_completion_material", columnNames = {"request_id", "material_id"}),
+        @UniqueConstraint(name = "uq_completion_assignment", columnNames = {"request_id", "assignment_id"})
+})
+@Getter
+@Setter
+public class StudyingCompletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "completion_id")
+    private Integer id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "request_id", nullable = false)
+    private Request request;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "material_id")
+    private EducationMaterial material;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "assignment_id")
+    private Assignment assignment;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+}
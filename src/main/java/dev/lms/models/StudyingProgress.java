@@ -3,11 +3,13 @@ package dev.lms.models;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "studying_progress")
+@Table(name = "studying_progress", uniqueConstraints =
+        @UniqueConstraint(name = "uq_studying_progress_request", columnNames = "request_id"))
 @Getter
 @Setter
 public class StudyingProgress {
@@ -19,6 +21,11 @@ public class StudyingProgress {
     @Column(name = "education_start_date", nullable = false)
     private LocalDateTime educationStartDate;
 
+    // Число пройденных элементов курса, счётчик ведёт StudyingCompletionService
+    @ColumnDefault("0")
+    @Column(name = "completed_item_count", nullable = false, insertable = false, updatable = false)
+    private Integer completedItemCount;
+
     @Column(name = "graduation_date")
     private LocalDateTime graduationDate;
 
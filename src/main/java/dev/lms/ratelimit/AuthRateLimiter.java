@@ -0,0 +1,73 @@
+package dev.lms.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+// Ограничение частоты запросов к /api/auth по IP клиента и по email
+@Component
+public class AuthRateLimiter {
+    private final TokenBucketRateLimiter ipLimiter;
+    private final TokenBucketRateLimiter emailLimiter;
+    private final Counter ipHits;
+    private final Counter ipRejects;
+    private final Counter emailHits;
+    private final Counter emailRejects;
+
+    public AuthRateLimiter(MeterRegistry meterRegistry,
+                           @Value("${auth.rate-limit.ip.capacity:30}") int ipCapacity,
+                           @Value("${auth.rate-limit.ip.per-minute:30}") int ipPerMinute,
+                           @Value("${auth.rate-limit.email.capacity:5}") int emailCapacity,
+                           @Value("${auth.rate-limit.email.per-minute:5}") int emailPerMinute,
+                           @Value("${auth.rate-limit.max-keys:1000000}") int maxKeys) {
+        this.ipLimiter = new TokenBucketRateLimiter(ipCapacity, ipPerMinute, maxKeys);
+        this.emailLimiter = new TokenBucketRateLimiter(emailCapacity, emailPerMinute, maxKeys);
+
+        this.ipHits = counter(meterRegistry, "auth.rate-limit.hits", "ip");
+        this.ipRejects = counter(meterRegistry, "auth.rate-limit.rejects", "ip");
+        this.emailHits = counter(meterRegistry, "auth.rate-limit.hits", "email");
+        this.emailRejects = counter(meterRegistry, "auth.rate-limit.rejects", "email");
+        Gauge.builder("auth.rate-limit.keys", ipLimiter, TokenBucketRateLimiter::size)
+                .tag("key", "ip")
+                .register(meterRegistry);
+        Gauge.builder("auth.rate-limit.keys", emailLimiter, TokenBucketRateLimiter::size)
+                .tag("key", "email")
+                .register(meterRegistry);
+    }
+
+    // Сначала проверяется IP, чтобы перебор по многим email с одного адреса не расходовал их корзины
+    public boolean tryAcquire(String clientIp, String email) {
+        if (!ipLimiter.tryAcquire(clientIp)) {
+            ipRejects.increment();
+            return false;
+        }
+        ipHits.increment();
+
+        if (email == null || email.isBlank()) {
+            return true;
+        }
+        if (!emailLimiter.tryAcquire(email.trim().toLowerCase(Locale.ROOT))) {
+            emailRejects.increment();
+            return false;
+        }
+        emailHits.increment();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        ipLimiter.evictIdle();
+        emailLimiter.evictIdle();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String key) {
+        return Counter.builder(name)
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,115 @@
+package dev.lms.ratelimit;
+
+import java.util.HashMap;
+
+// Token bucket с блокировками по сегментам. Состояние корзины - одно число:
+// момент, когда корзина снова станет полной (алгоритм GCRA). Полная корзина равна
+// отсутствующей, поэтому простаивающие ключи можно удалять без потери состояния. Корзины, которые ещё
+// не восстановились, не вытесняются никогда: иначе перебор новых ключей выдавал бы ограниченному клиенту
+// новую полную корзину. Если сегмент заполнен такими корзинами, новый ключ получает отказ до их восстановления
+public class TokenBucketRateLimiter {
+    private static final int STRIPES = 64;
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public TokenBucketRateLimiter(int capacity, int tokensPerMinute, int maxKeys) {
+        this.nanosPerToken = 60_000_000_000L / Math.max(1, tokensPerMinute);
+        this.burstNanos = nanosPerToken * Math.max(1, capacity);
+        int maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(maxKeysPerStripe);
+        }
+    }
+
+    public boolean tryAcquire(String key) {
+        long now = System.nanoTime();
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(key);
+            if (bucket == null && !stripe.hasRoom(now)) {
+                return false;
+            }
+            long fullAt = bucket == null ? now : Math.max(bucket.fullAt, now);
+            long next = fullAt + nanosPerToken;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (bucket == null) {
+                stripe.put(key, new Bucket(next));
+            } else {
+                bucket.fullAt = next;
+            }
+            return true;
+        }
+    }
+
+    // Удаление корзин, которые успели полностью восстановиться
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                int before = stripe.size();
+                stripe.values().removeIf(bucket -> bucket.fullAt - now <= 0);
+                evicted += before - stripe.size();
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static final class Bucket {
+        private long fullAt;
+
+        private Bucket(long fullAt) {
+            this.fullAt = fullAt;
+        }
+    }
+
+    private static final class Stripe extends HashMap<String, Bucket> {
+        private final int maxKeys;
+        // Раньше этого момента ни одна корзина заполненного сегмента не восстановится, повторный обход не нужен
+        private long nextRefillAt;
+
+        private Stripe(int maxKeys) {
+            this.maxKeys = maxKeys;
+            this.nextRefillAt = System.nanoTime();
+        }
+
+        private boolean hasRoom(long now) {
+            if (size() < maxKeys) {
+                return true;
+            }
+            if (now - nextRefillAt < 0) {
+                return false;
+            }
+            values().removeIf(bucket -> bucket.fullAt - now <= 0);
+            if (size() < maxKeys) {
+                return true;
+            }
+            nextRefillAt = now + Long.MAX_VALUE / 2;
+            for (Bucket bucket : values()) {
+                if (bucket.fullAt - nextRefillAt < 0) {
+                    nextRefillAt = bucket.fullAt;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -12,4 +12,7 @@ import java.util.List;
 public interface AttachedFileRepository extends JpaRepository<AttachedFile, Integer> {
     @Query("SELECT a FROM AttachedFile a WHERE a.assignment.id = :assignmentId")
     List<AttachedFile> findAllByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    @Query("SELECT a FROM AttachedFile a WHERE a.assignment.id IN :assignmentIds")
+    List<AttachedFile> findAllByAssignmentIdIn(@Param("assignmentIds") List<Integer> assignmentIds);
 }
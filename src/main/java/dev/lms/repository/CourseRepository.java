@@ -8,15 +8,19 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
-public interface CourseRepository extends JpaRepository<Course, Long> {
+public interface CourseRepository extends JpaRepository<Course, Long>, CourseRepositoryCustom {
 
     @Query("SELECT c FROM Course c JOIN FETCH c.status JOIN FETCH c.category")
     List<Course> findAllWithRelations();
 
-    @Query("SELECT c FROM Course c WHERE c.id = :id")
+    @Query("SELECT c FROM Course c JOIN FETCH c.category JOIN FETCH c.status WHERE c.id = :id")
     Optional<Course> findByIdWithDetails(@Param("id") Integer id);
 
-    List<Course> findAllByWorkerId(Integer id);
+    @Query("SELECT c FROM Course c JOIN FETCH c.status JOIN c.worker w WHERE w.id = :id")
+    List<Course> findAllByWorkerId(@Param("id") Integer id);
 
     Course findById(Integer id);
+
+    @Query("SELECT c.progressItemCount FROM Course c WHERE c.id = :id")
+    Optional<Integer> findProgressItemCount(@Param("id") Integer id);
 }
\ No newline at end of file
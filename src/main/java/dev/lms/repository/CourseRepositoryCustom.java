@@ -0,0 +1,13 @@
+package dev.lms.repository;
+
+import dev.lms.dto.CourseFilterDto;
+import dev.lms.dto.CourseShortDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface CourseRepositoryCustom {
+
+    // Страница каталога после позиции (afterStartDate, afterId) в порядке start_date, course_id
+    List<CourseShortDto> findPage(CourseFilterDto filter, LocalDateTime afterStartDate, Integer afterId, int limit);
+}
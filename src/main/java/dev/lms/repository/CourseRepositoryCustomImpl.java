@@ -0,0 +1,77 @@
+package dev.lms.repository;
+
+import dev.lms.dto.CourseFilterDto;
+import dev.lms.dto.CourseShortDto;
+import dev.lms.models.Course;
+import dev.lms.models.CourseStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CourseRepositoryCustomImpl implements CourseRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<CourseShortDto> findPage(CourseFilterDto filter, LocalDateTime afterStartDate, Integer afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CourseShortDto> query = cb.createQuery(CourseShortDto.class);
+        Root<Course> course = query.from(Course.class);
+        Join<Course, CourseStatus> status = course.join("status");
+
+        // Выбираются только колонки, нужные CourseShortDto
+        query.select(cb.construct(CourseShortDto.class,
+                course.get("id"),
+                course.get("name"),
+                course.get("studyDirection"),
+                course.get("startDate"),
+                course.get("hoursCount"),
+                status.get("name")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getCategoryId() != null) {
+            predicates.add(cb.equal(course.get("category").get("id"), filter.getCategoryId()));
+        }
+        if (filter.getStatusId() != null) {
+            predicates.add(cb.equal(status.get("id"), filter.getStatusId()));
+        }
+        if (filter.getStudyDirection() != null && !filter.getStudyDirection().isBlank()) {
+            predicates.add(cb.equal(course.get("studyDirection"), filter.getStudyDirection()));
+        }
+        if (filter.getStartFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(course.get("startDate"), filter.getStartFrom()));
+        }
+        if (filter.getEndTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(course.get("endDate"), filter.getEndTo()));
+        }
+        if (filter.getMinHours() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(course.get("hoursCount"), filter.getMinHours()));
+        }
+        if (filter.getMaxHours() != null) {
+            predicates.add(cb.lessThanOrEqualTo(course.get("hoursCount"), filter.getMaxHours()));
+        }
+        // Keyset: (start_date, course_id) > (:afterStartDate, :afterId), без OFFSET
+        if (afterStartDate != null && afterId != null) {
+            predicates.add(cb.or(
+                    cb.greaterThan(course.get("startDate"), afterStartDate),
+                    cb.and(
+                            cb.equal(course.get("startDate"), afterStartDate),
+                            cb.greaterThan(course.get("id"), afterId))));
+        }
+
+        query.where(predicates.toArray(Predicate[]::new));
+        query.orderBy(cb.asc(course.get("startDate")), cb.asc(course.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
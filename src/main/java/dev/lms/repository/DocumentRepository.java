@@ -10,6 +10,6 @@ import java.util.List;
 
 public interface DocumentRepository extends JpaRepository<Document, Long> {
 
-    @Query("SELECT d FROM Document d WHERE d.student.id = :studentId")
+    @Query("SELECT d FROM Document d JOIN FETCH d.type WHERE d.student.id = :studentId")
     List<Document> findByStudentId(@Param("studentId") Long studentId);
 }
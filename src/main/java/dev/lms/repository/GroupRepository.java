@@ -10,6 +10,9 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface GroupRepository extends JpaRepository<Group, Integer> {
-    @Query("SELECT g FROM Group g WHERE g.course.id = :id")
+    @Query("SELECT g FROM Group g JOIN FETCH g.course")
+    List<Group> findAllWithCourse();
+
+    @Query("SELECT g FROM Group g JOIN FETCH g.course WHERE g.course.id = :id")
     List<Group> findAllByCourseId(@Param("id") Integer id);
 }
@@ -10,21 +10,21 @@ import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
-public interface RequestRepository extends JpaRepository<Request, Integer> {
+public interface RequestRepository extends JpaRepository<Request, Integer>, RequestRepositoryCustom {
     List<Request> findByStudentId(Integer studentId);
 
     List<Request> findByCourseId(Integer courseId);
 
     Optional<Request> findByStudentIdAndCourseId(Integer studentId, Integer courseId);
 
-    @Query("SELECT r FROM Request r JOIN FETCH r.status JOIN FETCH r.course WHERE r.student.id = :studentId")
+    @Query("SELECT r FROM Request r JOIN FETCH r.status JOIN FETCH r.course JOIN FETCH r.student WHERE r.student.id = :studentId")
     List<Request> findAllRequestsByStudentId(@Param("studentId") Integer id);
 
     //Получение списка курсов авторизованного студента
-    @Query("SELECT r.course FROM Request r WHERE r.status.name like 'Одобрена' AND r.student.id = :id")
-    List <Course> findAllCoursesByStudentId(@Param("id") Integer id);
+    @Query("SELECT c FROM Request r JOIN r.course c JOIN FETCH c.status WHERE r.status.id = :statusId AND r.student.id = :id")
+    List <Course> findAllCoursesByStudentId(@Param("id") Integer id, @Param("statusId") Integer statusId);
 
-    @Query("SELECT r FROM Request r JOIN FETCH r.status JOIN FETCH r.course")
+    @Query("SELECT r FROM Request r JOIN FETCH r.status JOIN FETCH r.course JOIN FETCH r.student")
     List<Request> findAllWithRelations();
 
     @Query("SELECT r.student FROM Request r WHERE r.group.id = :groupId")
@@ -37,4 +37,8 @@ public interface RequestRepository extends JpaRepository<Request, Integer> {
 
 
     boolean existsByStudentIdAndCourseId(Long studentId, Integer courseId);
+
+    // Студент и курс для новой заявки одним запросом; пустой результат - кого-то из них нет
+    @Query("SELECT s, c FROM Student s, Course c WHERE s.id = :studentId AND c.id = :courseId")
+    List<Object[]> findStudentAndCourse(@Param("studentId") Integer studentId, @Param("courseId") Integer courseId);
 }
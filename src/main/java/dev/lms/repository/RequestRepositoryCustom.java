@@ -0,0 +1,14 @@
+package dev.lms.repository;
+
+import dev.lms.dto.RequestFilterDto;
+import dev.lms.dto.RequestQueueItemDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RequestRepositoryCustom {
+
+    // Страница очереди после позиции (afterCreateTime, afterId) в порядке create_time, request_id
+    List<RequestQueueItemDto> findQueuePage(RequestFilterDto filter, boolean ascending,
+                                            LocalDateTime afterCreateTime, Integer afterId, int limit);
+}
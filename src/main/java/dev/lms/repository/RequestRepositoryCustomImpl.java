@@ -0,0 +1,77 @@
+package dev.lms.repository;
+
+import dev.lms.dto.RequestFilterDto;
+import dev.lms.dto.RequestQueueItemDto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RequestRepositoryCustomImpl implements RequestRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<RequestQueueItemDto> findQueuePage(RequestFilterDto filter, boolean ascending,
+                                                   LocalDateTime afterCreateTime, Integer afterId, int limit) {
+        // Выбираются только колонки строки очереди; связи присоединяются по первичному ключу
+        // и только для строк страницы
+        StringBuilder jpql = new StringBuilder("""
+                SELECT new dev.lms.dto.RequestQueueItemDto(
+                    r.id, r.createTime, r.processingTime,
+                    st.id, st.name,
+                    c.id, c.name,
+                    g.id, g.name,
+                    s.id, s.firstName, s.middleName, s.lastName)
+                FROM Request r
+                JOIN r.status st
+                JOIN r.course c
+                JOIN r.student s
+                LEFT JOIN r.group g
+                WHERE 1 = 1
+                """);
+        Map<String, Object> params = new HashMap<>();
+
+        if (filter.getStatusId() != null) {
+            jpql.append(" AND r.status.id = :statusId");
+            params.put("statusId", filter.getStatusId());
+        }
+        if (filter.getCourseId() != null) {
+            jpql.append(" AND r.course.id = :courseId");
+            params.put("courseId", filter.getCourseId());
+        }
+        if (filter.isUnassigned()) {
+            jpql.append(" AND r.group IS NULL");
+        } else if (filter.getGroupId() != null) {
+            jpql.append(" AND r.group.id = :groupId");
+            params.put("groupId", filter.getGroupId());
+        }
+        if (filter.getCreatedFrom() != null) {
+            jpql.append(" AND r.createTime >= :createdFrom");
+            params.put("createdFrom", filter.getCreatedFrom());
+        }
+        if (filter.getCreatedTo() != null) {
+            jpql.append(" AND r.createTime < :createdTo");
+            params.put("createdTo", filter.getCreatedTo());
+        }
+        // Keyset через сравнение кортежей: (create_time, request_id) < (:t, :id) использует индекс как диапазон
+        if (afterCreateTime != null && afterId != null) {
+            jpql.append(ascending
+                    ? " AND (r.createTime, r.id) > (:afterCreateTime, :afterId)"
+                    : " AND (r.createTime, r.id) < (:afterCreateTime, :afterId)");
+            params.put("afterCreateTime", afterCreateTime);
+            params.put("afterId", afterId);
+        }
+        jpql.append(ascending
+                ? " ORDER BY r.createTime ASC, r.id ASC"
+                : " ORDER BY r.createTime DESC, r.id DESC");
+
+        TypedQuery<RequestQueueItemDto> query = entityManager.createQuery(jpql.toString(), RequestQueueItemDto.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
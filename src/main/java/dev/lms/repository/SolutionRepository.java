@@ -4,11 +4,15 @@ import dev.lms.models.Assignment;
 import dev.lms.models.Group;
 import dev.lms.models.Solution;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface SolutionRepository extends JpaRepository<Solution, Integer> {
-    List<Solution> findAllByAssignmentId(Integer id);
+    @Query("SELECT s FROM Solution s JOIN FETCH s.student WHERE s.assignment.id = :id")
+    List<Solution> findAllByAssignmentId(@Param("id") Integer id);
 
-    List<Solution> findAllSolutionsByStudentId(Integer id);
+    @Query("SELECT s FROM Solution s JOIN FETCH s.student WHERE s.student.id = :id")
+    List<Solution> findAllSolutionsByStudentId(@Param("id") Integer id);
 }
@@ -2,7 +2,10 @@ package dev.lms.repository;
 
 import dev.lms.models.Student;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,4 +20,9 @@ public interface StudentRepository extends JpaRepository<Student, Long> {
     Student findStudentById(long id);
 
     boolean existsByEmail(String email);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Student s SET s.password = :password WHERE s.id = :id")
+    int updatePassword(@Param("id") Integer id, @Param("password") String password);
 }
@@ -1,10 +1,14 @@
 package dev.lms.repository;
 
+import dev.lms.dto.StudyingProgressDto;
 import dev.lms.models.Request;
 import dev.lms.models.Student;
 import dev.lms.models.StudyingProgress;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
@@ -13,12 +17,23 @@ import java.util.Optional;
 public interface StudyingProgressRepository extends JpaRepository<StudyingProgress, Integer> {
     Optional<StudyingProgress> findByRequest(Request request);
 
-    @Query("SELECT s, s.request.student FROM StudyingProgress s JOIN FETCH s.status WHERE s.request.group.id = :groupId")
+    @Query("SELECT s FROM StudyingProgress s JOIN FETCH s.status JOIN FETCH s.request r JOIN FETCH r.student WHERE r.group.id = :groupId")
     List<StudyingProgress> findAllStudentsByGroupId(@Param("groupId") Integer groupId);
 
+    // Прогресс студента по курсу одним запросом в DTO, сущности в контекст не попадают
+    @Query("SELECT new dev.lms.dto.StudyingProgressDto(s.id, r.course.id, s.percent, s.educationStartDate, " +
+            "s.graduationDate, st.name) " +
+            "FROM StudyingProgress s JOIN s.request r JOIN s.status st " +
+            "WHERE r.student.id = :studentId AND r.course.id = :courseId")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+    Optional<StudyingProgressDto> findProgressView(@Param("studentId") Integer studentId,
+                                                   @Param("courseId") Integer courseId);
+
     @Query(value = "SELECT * FROM studying_progress WHERE request_id = :requestId", nativeQuery = true)
     StudyingProgress findByRequestId(@Param("requestId") Integer requestId);
 
-    @Query("SELECT s, s.request.course, s.request  FROM StudyingProgress s JOIN FETCH s.status WHERE s.request.student.id = :studentId AND s.request.status.name LIKE 'Одобрена'")
-    List<StudyingProgress> findAllCoursesWithProgress(@Param("studentId") Integer studentId);
+    @Query("SELECT s FROM StudyingProgress s JOIN FETCH s.status JOIN FETCH s.request r JOIN FETCH r.course c JOIN FETCH c.status " +
+            "WHERE r.student.id = :studentId AND r.status.id = :statusId")
+    List<StudyingProgress> findAllCoursesWithProgress(@Param("studentId") Integer studentId,
+                                                      @Param("statusId") Integer statusId);
 }
@@ -5,8 +5,10 @@ import dev.lms.models.Request;
 import dev.lms.models.Student;
 import dev.lms.models.Worker;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -29,4 +31,9 @@ public interface WorkerRepository extends JpaRepository<Worker, Long> {
 
     Worker findById(Integer id);
     boolean existsByEmail(String email);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Worker w SET w.password = :password WHERE w.id = :id")
+    int updatePassword(@Param("id") Integer id, @Param("password") String password);
 }
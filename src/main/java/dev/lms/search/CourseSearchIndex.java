@@ -0,0 +1,245 @@
+package dev.lms.search;
+
+import dev.lms.dto.CourseSearchResultDto;
+import dev.lms.dto.CourseSearchResultDto.FacetCount;
+import dev.lms.dto.CourseSearchResultDto.Hit;
+import dev.lms.dto.CourseShortDto;
+import dev.lms.models.Category;
+import dev.lms.models.Course;
+import dev.lms.models.CourseStatus;
+import dev.lms.repository.CourseRepository;
+import dev.lms.service.ReferenceDataRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Инвертированный индекс каталога курсов в памяти. Строится при старте и обновляется
+// из CourseService после коммита, поиск в БД не ходит
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseSearchIndex {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "и", "в", "во", "не", "что", "на", "с", "со", "как", "а", "то", "все", "так", "но", "да", "к", "у",
+            "же", "за", "бы", "по", "только", "ее", "от", "из", "для", "при", "или", "о", "об", "до", "без");
+    // Вес поля: совпадение в названии важнее совпадения в описании
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double DIRECTION_WEIGHT = 2.0;
+    private static final double COMPETENCE_WEIGHT = 1.5;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final CourseRepository courseRepository;
+    private final ReferenceDataRegistry referenceData;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, IndexedCourse> documents = new HashMap<>();
+    private final Map<String, Map<Integer, Double>> postings = new HashMap<>();
+    private double totalLength;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        List<IndexedCourse> courses = courseRepository.findAllWithRelations().stream()
+                .map(CourseSearchIndex::toIndexed)
+                .toList();
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            postings.clear();
+            totalLength = 0;
+            courses.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Course search index built: {} courses, {} terms", courses.size(), postings.size());
+    }
+
+    // Снимок курса берётся сразу, в индекс он попадает только после коммита транзакции
+    public void index(Course course) {
+        IndexedCourse indexed = toIndexed(course);
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(indexed.id());
+                add(indexed);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void delete(Integer courseId) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(courseId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public CourseSearchResultDto search(String query, Integer categoryId, Integer statusId, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = new HashMap<>();
+            if (terms.isEmpty()) {
+                documents.keySet().forEach(id -> scores.put(id, 0.0));
+            } else {
+                double averageLength = documents.isEmpty() ? 1 : totalLength / documents.size();
+                for (String term : terms) {
+                    Map<Integer, Double> posting = postings.get(term);
+                    if (posting == null) {
+                        continue;
+                    }
+                    // BM25 по взвешенной частоте термина
+                    double idf = Math.log(1 + (documents.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+                    posting.forEach((id, tf) -> {
+                        double norm = K1 * (1 - B + B * documents.get(id).length() / averageLength);
+                        scores.merge(id, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                    });
+                }
+            }
+
+            // Счётчики фасета учитывают фильтр по другому фасету, но не по своему
+            Map<Integer, Integer> categoryCounts = new TreeMap<>();
+            Map<Integer, Integer> statusCounts = new TreeMap<>();
+            List<Hit> hits = new ArrayList<>();
+            scores.forEach((id, score) -> {
+                IndexedCourse course = documents.get(id);
+                boolean categoryMatches = categoryId == null || categoryId.equals(course.categoryId());
+                boolean statusMatches = statusId == null || statusId.equals(course.statusId());
+                if (statusMatches) {
+                    categoryCounts.merge(course.categoryId(), 1, Integer::sum);
+                }
+                if (categoryMatches) {
+                    statusCounts.merge(course.statusId(), 1, Integer::sum);
+                }
+                if (categoryMatches && statusMatches) {
+                    hits.add(new Hit(course.toShortDto(statusName(course.statusId())), score));
+                }
+            });
+            // Названия берутся из справочников в момент поиска, в индексе хранятся только id
+            List<FacetCount> categories = new ArrayList<>(categoryCounts.size());
+            categoryCounts.forEach((id, count) -> categories.add(new FacetCount(id,
+                    referenceData.category(id).map(Category::getName).orElse(null), count)));
+            List<FacetCount> statuses = new ArrayList<>(statusCounts.size());
+            statusCounts.forEach((id, count) -> statuses.add(new FacetCount(id, statusName(id), count)));
+
+            hits.sort(Comparator.comparingDouble(Hit::score).reversed()
+                    .thenComparing(hit -> hit.course().getName(), Comparator.nullsLast(String::compareTo)));
+            int total = hits.size();
+            return new CourseSearchResultDto(total,
+                    List.copyOf(hits.subList(0, Math.min(limit, total))),
+                    List.copyOf(categories),
+                    List.copyOf(statuses));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String statusName(Integer statusId) {
+        return referenceData.courseStatus(statusId).map(CourseStatus::getName).orElse(null);
+    }
+
+    private void add(IndexedCourse course) {
+        documents.put(course.id(), course);
+        course.terms().forEach((term, tf) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(course.id(), tf));
+        totalLength += course.length();
+    }
+
+    private void remove(Integer courseId) {
+        IndexedCourse course = documents.remove(courseId);
+        if (course == null) {
+            return;
+        }
+        course.terms().keySet().forEach(term -> {
+            Map<Integer, Double> posting = postings.get(term);
+            posting.remove(courseId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        });
+        totalLength -= course.length();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static IndexedCourse toIndexed(Course course) {
+        Map<String, Double> terms = new HashMap<>();
+        double length = 0;
+        length += addTerms(terms, course.getName(), NAME_WEIGHT);
+        length += addTerms(terms, course.getStudyDirection(), DIRECTION_WEIGHT);
+        length += addTerms(terms, course.getResultCompetence(), COMPETENCE_WEIGHT);
+        length += addTerms(terms, course.getDescription(), DESCRIPTION_WEIGHT);
+        return new IndexedCourse(course.getId(), course.getName(), course.getStudyDirection(), course.getStartDate(),
+                course.getHoursCount(),
+                course.getCategory().getId(), course.getStatus().getId(),
+                Map.copyOf(terms), Math.max(length, 1));
+    }
+
+    private static int addTerms(Map<String, Double> terms, String text, double weight) {
+        List<String> tokens = tokenize(text);
+        tokens.forEach(token -> terms.merge(token, weight, Double::sum));
+        return tokens.size();
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase().replace('ё', 'е'))) {
+            if (token.isEmpty() || STOP_WORDS.contains(token)) {
+                continue;
+            }
+            tokens.add(RussianStemmer.stem(token));
+        }
+        return tokens;
+    }
+
+    private record IndexedCourse(Integer id, String name, String studyDirection, LocalDateTime startDate,
+                                 Integer hoursCount,
+                                 Integer categoryId, Integer statusId,
+                                 Map<String, Double> terms, double length) {
+
+        CourseShortDto toShortDto(String statusName) {
+            return new CourseShortDto(id, name, studyDirection, startDate, hoursCount, statusName);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package dev.lms.search;
+
+// Стеммер русского языка по алгоритму Snowball (Porter для русского).
+// Окончания отсекаются только в области RV - части слова после первой гласной
+public final class RussianStemmer {
+    private static final String VOWELS = "аеиоуыэюя";
+
+    private static final String[] PERFECTIVE_GERUND_1 = {"вшись", "вши", "в"};
+    private static final String[] PERFECTIVE_GERUND_2 = {"ившись", "ывшись", "ивши", "ывши", "ив", "ыв"};
+    private static final String[] ADJECTIVE = {
+            "ими", "ыми", "его", "ого", "ему", "ому",
+            "ее", "ие", "ые", "ое", "ей", "ий", "ый", "ой", "ем", "им", "ым", "ом",
+            "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"};
+    private static final String[] PARTICIPLE_1 = {"ем", "нн", "вш", "ющ", "щ"};
+    private static final String[] PARTICIPLE_2 = {"ивш", "ывш", "ующ"};
+    private static final String[] REFLEXIVE = {"ся", "сь"};
+    private static final String[] VERB_1 = {
+            "ете", "йте", "ешь", "нно",
+            "ла", "на", "ли", "ем", "ло", "но", "ет", "ют", "ны", "ть",
+            "й", "л", "н"};
+    private static final String[] VERB_2 = {
+            "ейте", "уйте",
+            "ила", "ыла", "ена", "ите", "или", "ыли", "ило", "ыло", "ено", "ует", "уют", "ены", "ить", "ыть", "ишь",
+            "ей", "уй", "ил", "ыл", "им", "ым", "ен", "ят", "ит", "ыт", "ую",
+            "ю"};
+    private static final String[] NOUN = {
+            "иями",
+            "ями", "ами", "ией", "иям", "ием", "иях",
+            "ев", "ов", "ие", "ье", "еи", "ии", "ей", "ой", "ий", "ям", "ем", "ам", "ом", "ах", "ях", "ию", "ью", "ия", "ья",
+            "а", "е", "и", "й", "о", "у", "ы", "ь", "ю", "я"};
+    private static final String[] SUPERLATIVE = {"ейше", "ейш"};
+    private static final String[] DERIVATIONAL = {"ость", "ост"};
+
+    private RussianStemmer() {
+    }
+
+    public static String stem(String word) {
+        String w = word.toLowerCase().replace('ё', 'е');
+        int rv = regionAfterVowel(w, 0);
+        if (rv >= w.length()) {
+            return w;
+        }
+        int r2 = regionR(w, regionR(w, 0));
+        StringBuilder sb = new StringBuilder(w);
+
+        // Шаг 1
+        if (!removeGrouped(sb, rv, PERFECTIVE_GERUND_1, PERFECTIVE_GERUND_2)) {
+            removeLongest(sb, rv, REFLEXIVE);
+            if (!removeAdjectival(sb, rv)
+                    && !removeGrouped(sb, rv, VERB_1, VERB_2)) {
+                removeLongest(sb, rv, NOUN);
+            }
+        }
+
+        // Шаг 2
+        if (sb.length() > rv && sb.charAt(sb.length() - 1) == 'и') {
+            sb.setLength(sb.length() - 1);
+        }
+
+        // Шаг 3: словообразовательные окончания только в R2
+        removeLongest(sb, Math.max(rv, r2), DERIVATIONAL);
+
+        // Шаг 4
+        if (endsWith(sb, rv, "нн")) {
+            sb.setLength(sb.length() - 1);
+        } else if (removeLongest(sb, rv, SUPERLATIVE)) {
+            if (endsWith(sb, rv, "нн")) {
+                sb.setLength(sb.length() - 1);
+            }
+        } else if (endsWith(sb, rv, "ь")) {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
+    }
+
+    private static boolean removeAdjectival(StringBuilder sb, int rv) {
+        if (!removeLongest(sb, rv, ADJECTIVE)) {
+            return false;
+        }
+        removeGrouped(sb, rv, PARTICIPLE_1, PARTICIPLE_2);
+        return true;
+    }
+
+    // Окончания первой группы должны идти после "а" или "я", второй - без условия.
+    // Как в Snowball, выбирается самое длинное окончание из обеих групп
+    private static boolean removeGrouped(StringBuilder sb, int rv, String[] group1, String[] group2) {
+        String best1 = longestMatch(sb, rv, group1);
+        String best2 = longestMatch(sb, rv, group2);
+        if (best2 != null && (best1 == null || best2.length() >= best1.length())) {
+            sb.setLength(sb.length() - best2.length());
+            return true;
+        }
+        if (best1 != null) {
+            int before = sb.length() - best1.length() - 1;
+            if (before >= rv && (sb.charAt(before) == 'а' || sb.charAt(before) == 'я')) {
+                sb.setLength(sb.length() - best1.length());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean removeLongest(StringBuilder sb, int limit, String[] suffixes) {
+        String match = longestMatch(sb, limit, suffixes);
+        if (match == null) {
+            return false;
+        }
+        sb.setLength(sb.length() - match.length());
+        return true;
+    }
+
+    // Массивы окончаний упорядочены по убыванию длины, первое совпадение - самое длинное
+    private static String longestMatch(StringBuilder sb, int limit, String[] suffixes) {
+        for (String suffix : suffixes) {
+            if (endsWith(sb, limit, suffix)) {
+                return suffix;
+            }
+        }
+        return null;
+    }
+
+    private static boolean endsWith(StringBuilder sb, int limit, String suffix) {
+        int start = sb.length() - suffix.length();
+        if (start < limit) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (sb.charAt(start + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // RV: позиция после первой гласной, начиная с from
+    private static int regionAfterVowel(String w, int from) {
+        for (int i = from; i < w.length(); i++) {
+            if (isVowel(w.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return w.length();
+    }
+
+    // R1 (и R2 при from = R1): позиция после первой согласной, следующей за гласной
+    private static int regionR(String w, int from) {
+        for (int i = from + 1; i < w.length(); i++) {
+            if (!isVowel(w.charAt(i)) && isVowel(w.charAt(i - 1))) {
+                return i + 1;
+            }
+        }
+        return w.length();
+    }
+
+    private static boolean isVowel(char c) {
+        return VOWELS.indexOf(c) >= 0;
+    }
+}
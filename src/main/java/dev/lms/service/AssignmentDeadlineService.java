@@ -0,0 +1,233 @@
+package dev.lms.service;
+
+import dev.lms.dto.MissingSubmissionDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+// Обработка сроков заданий. Ближайший необработанный срок читается по частичному индексу
+// (deadline) WHERE deadline_processed_at IS NULL, и на это время взводится одна задача планировщика,
+// без периодического обхода заданий. Каждое задание захватывается условным UPDATE в транзакции
+// разметки, поэтому при нескольких узлах срок обрабатывает ровно один из них
+@Slf4j
+@Service
+public class AssignmentDeadlineService {
+    private static final int BATCH_SIZE = 100;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final Duration retryDelay;
+    private ScheduledFuture<?> armed;
+    private Instant armedAt;
+
+    public AssignmentDeadlineService(NamedParameterJdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     TaskScheduler taskScheduler,
+                                     @Value("${assignments.deadline.retry-delay-ms:60000}") long retryDelayMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskScheduler = taskScheduler;
+        this.retryDelay = Duration.ofMillis(retryDelayMs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rearm(null);
+    }
+
+    // Сроки, заданные на другом узле, здесь не видны до повторного чтения индекса.
+    // Читается одна строка MIN(deadline), задания при этом не перебираются
+    @Scheduled(fixedDelayString = "${assignments.deadline.resync-interval-ms:300000}",
+            initialDelayString = "${assignments.deadline.resync-interval-ms:300000}")
+    public void resync() {
+        rearm(null);
+    }
+
+    // Срок задания задан или изменён. Прежние отметки снимаются, опоздания пересчитываются к новому сроку;
+    // если срок уже прошёл, задание будет обработано сразу. Планировщик перевзводится после коммита
+    @Transactional
+    public void deadlineChanged(Integer assignmentId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("assignmentId", assignmentId);
+        jdbcTemplate.update("UPDATE assignment SET deadline_processed_at = NULL WHERE assignment_id = :assignmentId", params);
+        jdbcTemplate.update("DELETE FROM missing_submission WHERE assignment_id = :assignmentId", params);
+        jdbcTemplate.update("""
+                        UPDATE solution SET is_late = FALSE
+                        WHERE assignment_id = :assignmentId AND is_late = TRUE
+                          AND NOT EXISTS (SELECT 1 FROM assignment a
+                                          WHERE a.assignment_id = solution.assignment_id
+                                            AND solution.sending_date > a.deadline)""",
+                params);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rearm(null);
+                }
+            });
+        } else {
+            rearm(null);
+        }
+    }
+
+    // Решение отправлено после срока: отметка об отсутствии решения у студента снимается
+    @Transactional
+    public void lateSolutionAdded(Integer assignmentId, Integer studentId) {
+        jdbcTemplate.update("""
+                        DELETE FROM missing_submission
+                        WHERE assignment_id = :assignmentId
+                          AND request_id IN (SELECT request_id FROM request WHERE student_id = :studentId)""",
+                new MapSqlParameterSource()
+                        .addValue("assignmentId", assignmentId)
+                        .addValue("studentId", studentId));
+    }
+
+    public List<MissingSubmissionDto> getMissing(Integer assignmentId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("assignmentId", assignmentId);
+        Integer found = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM assignment WHERE assignment_id = :assignmentId",
+                params, Integer.class);
+        if (found == null || found == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Assignment not found");
+        }
+        return jdbcTemplate.query("""
+                        SELECT m.request_id, m.marked_at, st.student_id, st.surname, st.name, st.second_name
+                        FROM missing_submission m
+                        JOIN request r ON r.request_id = m.request_id
+                        JOIN student st ON st.student_id = r.student_id
+                        WHERE m.assignment_id = :assignmentId
+                        ORDER BY st.surname, st.name, m.request_id""",
+                params,
+                (rs, rowNum) -> new MissingSubmissionDto(rs.getInt("request_id"), rs.getInt("student_id"),
+                        rs.getString("surname"), rs.getString("name"), rs.getString("second_name"),
+                        rs.getTimestamp("marked_at").toLocalDateTime()));
+    }
+
+    // Обработка наступивших сроков пачками, каждое задание в своей транзакции. Пачки идут по ключу
+    // (deadline, assignment_id) после последнего взятого задания, поэтому сбойное задание не останавливает
+    // обработку остальных; само оно повторяется не раньше чем через retryDelay
+    void processDue() {
+        boolean failed = false;
+        try {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            Timestamp lastDeadline = null;
+            Integer lastId = null;
+            List<Map.Entry<Integer, Timestamp>> due;
+            do {
+                String after = lastId != null
+                        ? "AND (deadline > :lastDeadline OR (deadline = :lastDeadline AND assignment_id > :lastId)) "
+                        : "";
+                due = jdbcTemplate.query("""
+                                SELECT assignment_id, deadline FROM assignment
+                                WHERE deadline_processed_at IS NULL AND deadline IS NOT NULL AND deadline <= :now
+                                """ + after + """
+                                ORDER BY deadline, assignment_id
+                                LIMIT :limit""",
+                        new MapSqlParameterSource()
+                                .addValue("now", now)
+                                .addValue("lastDeadline", lastDeadline)
+                                .addValue("lastId", lastId)
+                                .addValue("limit", BATCH_SIZE),
+                        (rs, rowNum) -> Map.entry(rs.getInt("assignment_id"), rs.getTimestamp("deadline")));
+                for (Map.Entry<Integer, Timestamp> assignment : due) {
+                    try {
+                        process(assignment.getKey());
+                    } catch (RuntimeException e) {
+                        failed = true;
+                        log.error("Deadline processing failed for assignment {}", assignment.getKey(), e);
+                    }
+                    lastId = assignment.getKey();
+                    lastDeadline = assignment.getValue();
+                }
+            } while (due.size() == BATCH_SIZE);
+        } catch (RuntimeException e) {
+            failed = true;
+            log.error("Deadline processing failed", e);
+        } finally {
+            rearm(failed ? Instant.now().plus(retryDelay) : null);
+        }
+    }
+
+    // Захват срока и разметка одной транзакцией: при ошибке откатывается и захват.
+    // Другой узел ждёт на блокировке строки задания и после коммита получает 0 обновлённых строк
+    private void process(Integer assignmentId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("assignmentId", assignmentId)
+                    .addValue("now", now);
+            int claimed = jdbcTemplate.update("""
+                            UPDATE assignment SET deadline_processed_at = :now
+                            WHERE assignment_id = :assignmentId AND deadline_processed_at IS NULL
+                              AND deadline IS NOT NULL AND deadline <= :now""",
+                    params);
+            if (claimed == 0) {
+                return;
+            }
+            int late = jdbcTemplate.update("""
+                            UPDATE solution SET is_late = TRUE
+                            WHERE assignment_id = :assignmentId AND is_late = FALSE
+                              AND sending_date > (SELECT deadline FROM assignment WHERE assignment_id = :assignmentId)""",
+                    params);
+            // Студенты курса - заявки с прогрессом; отсутствующим считается студент без единого решения
+            int missing = jdbcTemplate.update("""
+                            INSERT INTO missing_submission (assignment_id, request_id, marked_at)
+                            SELECT a.assignment_id, r.request_id, :now
+                            FROM assignment a
+                            JOIN request r ON r.course_id = a.course_id
+                            JOIN studying_progress p ON p.request_id = r.request_id
+                            WHERE a.assignment_id = :assignmentId
+                              AND NOT EXISTS (SELECT 1 FROM solution s
+                                              WHERE s.assignment_id = a.assignment_id AND s.student_id = r.student_id)
+                            ON CONFLICT DO NOTHING""",
+                    params);
+            log.info("Deadline of assignment {} processed: {} late solutions, {} missing submissions",
+                    assignmentId, late, missing);
+        });
+    }
+
+    // Взвести задачу на ближайший необработанный срок, но не раньше notBefore
+    private synchronized void rearm(Instant notBefore) {
+        LocalDateTime next = jdbcTemplate.queryForObject("""
+                        SELECT MIN(deadline) FROM assignment
+                        WHERE deadline_processed_at IS NULL AND deadline IS NOT NULL""",
+                new MapSqlParameterSource(), LocalDateTime.class);
+        Instant at = null;
+        if (next != null) {
+            at = next.atZone(ZoneId.systemDefault()).toInstant();
+            if (notBefore != null && at.isBefore(notBefore)) {
+                at = notBefore;
+            }
+        }
+        // Задача на прошедшее время могла уже начаться (перевзвод из неё самой), такую не переиспользуем
+        if (armed != null && !armed.isDone()) {
+            if (at != null && at.equals(armedAt) && at.isAfter(Instant.now())) {
+                return;
+            }
+            armed.cancel(false);
+        }
+        armed = at != null ? taskScheduler.schedule(this::processDue, at) : null;
+        armedAt = at;
+    }
+}
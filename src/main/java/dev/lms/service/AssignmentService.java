@@ -9,8 +9,8 @@ import dev.lms.repository.AssignmentRepository;
 import dev.lms.repository.CourseRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -19,6 +19,10 @@ import java.util.stream.Collectors;
 public class AssignmentService {
     private final AssignmentRepository assignmentRepository;
     private final CourseRepository courseRepository;
+    private final StudyingCompletionService completionService;
+    private final AssignmentStatsService statsService;
+    private final AssignmentDeadlineService deadlineService;
+    private final CourseWorkspaceService courseWorkspaceService;
 
     public List<AssignmentDto> getAssignmentsByCourseId(Integer courseId) {
         List<Assignment> assignments = assignmentRepository.findAllByCourseId(courseId);
@@ -27,6 +31,7 @@ public class AssignmentService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional
     public AssignmentDto addAssignment(Integer courseId, AssignmentDto assignmentDto) {
         Course course = courseRepository.findById(Long.valueOf(courseId))
                 .orElseThrow(() -> new RuntimeException("Курс не найден"));
@@ -35,17 +40,26 @@ public class AssignmentService {
         assignment.setCourse(course);
         assignment.setAssignmentName(assignmentDto.getAssignmentName());
         assignment.setAssignmentDescription(assignmentDto.getAssignmentDescription());
-        assignment.setDeadline(LocalDateTime.now());
+        assignment.setDeadline(assignmentDto.getDeadline());
         Assignment savedAssignment = assignmentRepository.save(assignment);
+        completionService.itemAdded(course.getId());
+        statsService.assignmentAdded(savedAssignment.getId());
+        courseWorkspaceService.contentChanged(course.getId());
+        if (savedAssignment.getDeadline() != null) {
+            deadlineService.deadlineChanged(savedAssignment.getId());
+        }
         return new AssignmentDto(savedAssignment);
     }
 
 
+    @Transactional
     public void deleteAssignment(Integer materialId) {
         Assignment assignment = assignmentRepository.findById(materialId)
                 .orElseThrow(() -> new RuntimeException("Assignment not found with id: " + materialId));
 
+        completionService.assignmentRemoved(materialId);
         assignmentRepository.deleteById(materialId);
+        courseWorkspaceService.contentChanged(assignment.getCourse().getId());
     }
 
 }
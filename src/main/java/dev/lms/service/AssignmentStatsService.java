@@ -0,0 +1,297 @@
+package dev.lms.service;
+
+import dev.lms.dto.AssignmentStatsDto;
+import dev.lms.dto.AssignmentStatsDto.ScoreCount;
+import dev.lms.dto.AssignmentStatsRepairReportDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+// Статистика по заданиям из счётчиков: строка assignment_stats на задание и распределение оценок
+// в assignment_score_count. Счётчики меняются при отправке и оценке решения, поэтому статистика
+// читается без обхода таблицы solution. Расхождения исправляет периодическая сверка
+@Slf4j
+@Service
+public class AssignmentStatsService {
+    // Фактические значения счётчиков по таблице решений, только для сверки и пересчёта
+    private static final String ACTUAL_SQL = """
+            SELECT s.assignment_id,
+                   COUNT(*) AS submission_count,
+                   COUNT(s.solution_score) AS graded_count,
+                   COALESCE(SUM(s.solution_score), 0) AS score_sum,
+                   SUM(CASE WHEN s.sending_date > a.deadline THEN 1 ELSE 0 END) AS late_count,
+                   COUNT(DISTINCT s.student_id) AS student_count
+            FROM solution s
+            JOIN assignment a ON a.assignment_id = s.assignment_id
+            %s
+            GROUP BY s.assignment_id""";
+
+    private static final String ACTUAL_SCORES_SQL = """
+            SELECT assignment_id, solution_score AS score, COUNT(*) AS solution_count
+            FROM solution
+            WHERE solution_score IS NOT NULL %s
+            GROUP BY assignment_id, solution_score""";
+
+    private static final String INSERT_STATS_SQL = """
+            INSERT INTO assignment_stats (assignment_id)
+            SELECT assignment_id FROM assignment WHERE assignment_id = :assignmentId
+            ON CONFLICT DO NOTHING""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public AssignmentStatsService(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Смена оценки решения: null - решение без оценки
+    public record Grade(Integer assignmentId, Integer oldScore, Integer newScore) {
+    }
+
+    public AssignmentStatsDto getStats(Integer assignmentId) {
+        List<ScoreCount> distribution = new ArrayList<>();
+        AssignmentStatsDto[] stats = new AssignmentStatsDto[1];
+        // Студенты курса - заявки с прогрессом, счёт идёт по индексу заявок курса
+        jdbcTemplate.query("""
+                        SELECT a.assignment_id, a.course_id, a.deadline,
+                               st.submission_count, st.graded_count, st.score_sum, st.late_count, st.student_count,
+                               (SELECT COUNT(*) FROM request r
+                                JOIN studying_progress p ON p.request_id = r.request_id
+                                WHERE r.course_id = a.course_id) AS enrolled,
+                               c.score, c.solution_count
+                        FROM assignment a
+                        LEFT JOIN assignment_stats st ON st.assignment_id = a.assignment_id
+                        LEFT JOIN assignment_score_count c ON c.assignment_id = a.assignment_id AND c.solution_count > 0
+                        WHERE a.assignment_id = :assignmentId
+                        ORDER BY c.score""",
+                new MapSqlParameterSource("assignmentId", assignmentId),
+                rs -> {
+                    if (stats[0] == null) {
+                        long submissions = rs.getLong("submission_count");
+                        long graded = rs.getLong("graded_count");
+                        long enrolled = rs.getLong("enrolled");
+                        long submitted = rs.getLong("student_count");
+                        Timestamp deadline = rs.getTimestamp("deadline");
+                        stats[0] = new AssignmentStatsDto(assignmentId, rs.getInt("course_id"),
+                                deadline != null ? deadline.toLocalDateTime() : null,
+                                submissions, graded, submissions - graded,
+                                graded > 0 ? (double) rs.getLong("score_sum") / graded : null,
+                                distribution, rs.getLong("late_count"),
+                                enrolled, submitted, Math.max(enrolled - submitted, 0));
+                    }
+                    Integer score = rs.getObject("score", Integer.class);
+                    if (score != null) {
+                        distribution.add(new ScoreCount(score, rs.getLong("solution_count")));
+                    }
+                });
+        if (stats[0] == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Assignment not found");
+        }
+        return stats[0];
+    }
+
+    @Transactional
+    public void assignmentAdded(Integer assignmentId) {
+        jdbcTemplate.update(INSERT_STATS_SQL, new MapSqlParameterSource("assignmentId", assignmentId));
+    }
+
+    // Новое решение уже вставлено: опоздание сравнивается со сроком задания, студент учитывается,
+    // если других решений этого задания у него нет. Обе проверки идут по индексам
+    @Transactional
+    public void solutionAdded(Integer assignmentId, Integer studentId, Integer solutionId, LocalDateTime sendingDate) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("assignmentId", assignmentId)
+                .addValue("studentId", studentId)
+                .addValue("solutionId", solutionId)
+                .addValue("sendingDate", Timestamp.valueOf(sendingDate));
+        updateOrInsert("""
+                        UPDATE assignment_stats
+                        SET submission_count = submission_count + 1,
+                            late_count = late_count + CASE WHEN EXISTS (
+                                SELECT 1 FROM assignment a
+                                WHERE a.assignment_id = :assignmentId AND a.deadline < :sendingDate) THEN 1 ELSE 0 END,
+                            student_count = student_count + CASE WHEN EXISTS (
+                                SELECT 1 FROM solution s
+                                WHERE s.assignment_id = :assignmentId AND s.student_id = :studentId
+                                  AND s.solution_id <> :solutionId) THEN 0 ELSE 1 END
+                        WHERE assignment_id = :assignmentId""",
+                INSERT_STATS_SQL, List.of(params));
+    }
+
+    // Оценки решений изменились. Строки заданий обновляются по возрастанию id, затем строки распределения:
+    // в том же порядке блокирует строки пересчёт, поэтому параллельная оценка и сверка не встают во взаимную блокировку
+    @Transactional
+    public void solutionsGraded(Collection<Grade> grades) {
+        Map<Integer, Delta> deltas = new TreeMap<>();
+        for (Grade grade : grades) {
+            if (Objects.equals(grade.oldScore(), grade.newScore())) {
+                continue;
+            }
+            Delta delta = deltas.computeIfAbsent(grade.assignmentId(), id -> new Delta());
+            if (grade.oldScore() != null) {
+                delta.graded--;
+                delta.scoreSum -= grade.oldScore();
+                delta.scores.merge(grade.oldScore(), -1, Integer::sum);
+            }
+            if (grade.newScore() != null) {
+                delta.graded++;
+                delta.scoreSum += grade.newScore();
+                delta.scores.merge(grade.newScore(), 1, Integer::sum);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<MapSqlParameterSource> statsUpdates = new ArrayList<>();
+        List<MapSqlParameterSource> scoreUpdates = new ArrayList<>();
+        deltas.forEach((assignmentId, delta) -> {
+            statsUpdates.add(new MapSqlParameterSource()
+                    .addValue("assignmentId", assignmentId)
+                    .addValue("graded", delta.graded)
+                    .addValue("scoreSum", delta.scoreSum));
+            delta.scores.forEach((score, count) -> {
+                if (count != 0) {
+                    scoreUpdates.add(new MapSqlParameterSource()
+                            .addValue("assignmentId", assignmentId)
+                            .addValue("score", score)
+                            .addValue("count", count));
+                }
+            });
+        });
+        updateOrInsert("""
+                        UPDATE assignment_stats
+                        SET graded_count = graded_count + :graded, score_sum = score_sum + :scoreSum
+                        WHERE assignment_id = :assignmentId""",
+                INSERT_STATS_SQL, statsUpdates);
+        updateOrInsert("""
+                        UPDATE assignment_score_count SET solution_count = solution_count + :count
+                        WHERE assignment_id = :assignmentId AND score = :score""",
+                """
+                        INSERT INTO assignment_score_count (assignment_id, score, solution_count)
+                        SELECT assignment_id, :score, 0 FROM assignment WHERE assignment_id = :assignmentId
+                        ON CONFLICT DO NOTHING""",
+                scoreUpdates);
+    }
+
+    // Пересчёт счётчиков одного задания по таблице решений, например после смены срока
+    public void recompute(Integer assignmentId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            MapSqlParameterSource params = new MapSqlParameterSource("assignmentId", assignmentId);
+            jdbcTemplate.update(INSERT_STATS_SQL, params);
+            // Блокировка отдельной командой: следующие запросы увидят решения, закоммиченные до её получения
+            jdbcTemplate.query("SELECT assignment_id FROM assignment_stats WHERE assignment_id = :assignmentId FOR UPDATE",
+                    params, rs -> {
+                    });
+            Map<String, Object> actual = jdbcTemplate.queryForList(
+                            ACTUAL_SQL.formatted("WHERE s.assignment_id = :assignmentId"), params)
+                    .stream().findFirst().orElse(Map.of());
+            jdbcTemplate.update("""
+                            UPDATE assignment_stats
+                            SET submission_count = :submissions, graded_count = :graded, score_sum = :scoreSum,
+                                late_count = :late, student_count = :students
+                            WHERE assignment_id = :assignmentId""",
+                    new MapSqlParameterSource("assignmentId", assignmentId)
+                            .addValue("submissions", count(actual, "submission_count"))
+                            .addValue("graded", count(actual, "graded_count"))
+                            .addValue("scoreSum", count(actual, "score_sum"))
+                            .addValue("late", count(actual, "late_count"))
+                            .addValue("students", count(actual, "student_count")));
+            jdbcTemplate.update("DELETE FROM assignment_score_count WHERE assignment_id = :assignmentId", params);
+            jdbcTemplate.update("INSERT INTO assignment_score_count (assignment_id, score, solution_count) "
+                    + ACTUAL_SCORES_SQL.formatted("AND assignment_id = :assignmentId"), params);
+        });
+    }
+
+    // Сверка счётчиков с таблицей решений. Расходящиеся задания ищутся без блокировок,
+    // затем каждое пересчитывается в своей транзакции
+    @Scheduled(fixedDelayString = "${assignments.stats-reconciliation.interval-ms:86400000}",
+            initialDelayString = "${assignments.stats-reconciliation.initial-delay-ms:120000}")
+    public void reconcile() {
+        repair();
+    }
+
+    public AssignmentStatsRepairReportDto repair() {
+        List<Integer> drifted = jdbcTemplate.queryForList("""
+                        SELECT d.assignment_id FROM (
+                            SELECT a.assignment_id
+                            FROM assignment a
+                            LEFT JOIN assignment_stats st ON st.assignment_id = a.assignment_id
+                            LEFT JOIN (%s) x ON x.assignment_id = a.assignment_id
+                            WHERE st.assignment_id IS NULL
+                               OR st.submission_count <> COALESCE(x.submission_count, 0)
+                               OR st.graded_count <> COALESCE(x.graded_count, 0)
+                               OR st.score_sum <> COALESCE(x.score_sum, 0)
+                               OR st.late_count <> COALESCE(x.late_count, 0)
+                               OR st.student_count <> COALESCE(x.student_count, 0)
+                            UNION
+                            SELECT c.assignment_id
+                            FROM assignment_score_count c
+                            LEFT JOIN (%s) x ON x.assignment_id = c.assignment_id AND x.score = c.score
+                            WHERE c.solution_count <> COALESCE(x.solution_count, 0)
+                            UNION
+                            SELECT x.assignment_id
+                            FROM (%s) x
+                            LEFT JOIN assignment_score_count c ON c.assignment_id = x.assignment_id AND c.score = x.score
+                            WHERE c.assignment_id IS NULL
+                        ) d
+                        ORDER BY d.assignment_id""".formatted(ACTUAL_SQL.formatted(""),
+                        ACTUAL_SCORES_SQL.formatted(""), ACTUAL_SCORES_SQL.formatted("")),
+                new MapSqlParameterSource(), Integer.class);
+
+        drifted.forEach(this::recompute);
+        if (!drifted.isEmpty()) {
+            log.warn("Assignment stats repaired for {} assignments: {}", drifted.size(), drifted);
+        }
+        return new AssignmentStatsRepairReportDto(drifted.size(), drifted);
+    }
+
+    // Пакетный UPDATE; для строк, которых ещё нет, строка вставляется и UPDATE повторяется.
+    // Вставка без ключа в ON CONFLICT: при гонке второй INSERT ждёт первый и ничего не делает
+    private void updateOrInsert(String updateSql, String insertSql, List<MapSqlParameterSource> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource[] batch = rows.toArray(MapSqlParameterSource[]::new);
+        int[] updated = jdbcTemplate.batchUpdate(updateSql, batch);
+        List<MapSqlParameterSource> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(batch[i]);
+            }
+        }
+        if (!missing.isEmpty()) {
+            MapSqlParameterSource[] retry = missing.toArray(MapSqlParameterSource[]::new);
+            jdbcTemplate.batchUpdate(insertSql, retry);
+            jdbcTemplate.batchUpdate(updateSql, retry);
+        }
+    }
+
+    private static long count(Map<String, Object> row, String column) {
+        Object value = row.get(column);
+        return value instanceof Number number ? number.longValue() : 0;
+    }
+
+    private static final class Delta {
+        private int graded;
+        private long scoreSum;
+        private final Map<Integer, Integer> scores = new TreeMap<>();
+    }
+}
@@ -9,109 +9,158 @@ import dev.lms.models.Worker;
 import dev.lms.models.WorkerRole;
 import dev.lms.repository.StudentRepository;
 import dev.lms.repository.WorkerRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 
+
+// В пуле BCrypt выполняется только хэширование; сохранение, поиск и подпись токена продолжаются
+// в общем пуле приложения, чтобы потоки BCrypt не ждали базу и соединений из пула
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class AuthService {
 
     private final StudentRepository studentRepository;
     private final WorkerRepository workerRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtCore jwtTokenUtil;
+    private final Executor applicationExecutor;
+
+    public AuthService(StudentRepository studentRepository,
+                       WorkerRepository workerRepository,
+                       PasswordHashingService passwordHashingService,
+                       JwtCore jwtTokenUtil,
+                       @Qualifier("applicationTaskExecutor") Executor applicationExecutor) {
+        this.studentRepository = studentRepository;
+        this.workerRepository = workerRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.applicationExecutor = applicationExecutor;
+    }
 
 
-    public AuthResponse registerStudent(StudentRegistrationDto dto) {
+    public CompletableFuture<AuthResponse> registerStudent(StudentRegistrationDto dto) {
         if (studentRepository.existsByEmail(dto.getEmail())) {
             throw new RuntimeException("Email already exists");
         }
 
-        Student student = new Student();
-        student.setLastName(dto.getLastName());
-        student.setFirstName(dto.getFirstName());
-        student.setMiddleName(dto.getMiddleName());
-        student.setEmail(dto.getEmail());
-        student.setPassword(passwordEncoder.encode(dto.getPassword()));
+        return passwordHashingService.encode(dto.getPassword()).thenApplyAsync(encodedPassword -> {
+            Student student = new Student();
+            student.setLastName(dto.getLastName());
+            student.setFirstName(dto.getFirstName());
+            student.setMiddleName(dto.getMiddleName());
+            student.setEmail(dto.getEmail());
+            student.setPassword(encodedPassword);
 
-        Student savedStudent = studentRepository.save(student);
-        String token = jwtTokenUtil.generateToken(savedStudent.getEmail(), savedStudent.getId(), "STUDENT", "Студент");
+            Student savedStudent = studentRepository.save(student);
+            String token = jwtTokenUtil.generateToken(savedStudent.getEmail(), savedStudent.getId(), "STUDENT", "Студент");
 
-        return new AuthResponse(token, savedStudent.getId(), savedStudent.getEmail(), "STUDENT", "Студент");
+            return new AuthResponse(token, savedStudent.getId(), savedStudent.getEmail(), "STUDENT", "Студент");
+        }, applicationExecutor);
     }
 
-    public AuthResponse registerWorker(String email, String password, String firstName,
-                                       String lastName, WorkerRole role) {
+    public CompletableFuture<AuthResponse> registerWorker(String email, String password, String firstName,
+                                                          String lastName, WorkerRole role) {
         if (workerRepository.existsByEmail(email)) {
             throw new RuntimeException("Email already exists");
         }
 
-        Worker worker = new Worker();
-        worker.setEmail(email);
-        worker.setPassword(passwordEncoder.encode(password));
-        worker.setFirstName(firstName);
-        worker.setLastName(lastName);
-        worker.setRole(role);
+        return passwordHashingService.encode(password).thenApplyAsync(encodedPassword -> {
+            Worker worker = new Worker();
+            worker.setEmail(email);
+            worker.setPassword(encodedPassword);
+            worker.setFirstName(firstName);
+            worker.setLastName(lastName);
+            worker.setRole(role);
 
-        Worker savedWorker = workerRepository.save(worker);
-        String token = jwtTokenUtil.generateToken(savedWorker.getEmail(), savedWorker.getId(), "WORKER", "Преподаватель");
+            Worker savedWorker = workerRepository.save(worker);
+            String token = jwtTokenUtil.generateToken(savedWorker.getEmail(), savedWorker.getId(), "WORKER", "Преподаватель");
 
-        return new AuthResponse(token, savedWorker.getId(), savedWorker.getEmail(), "WORKER", "Преподаватель");
+            return new AuthResponse(token, savedWorker.getId(), savedWorker.getEmail(), "WORKER", "Преподаватель");
+        }, applicationExecutor);
     }
 
-    public AuthResponse authenticateStudent(AuthRequest request) {
+    public CompletableFuture<AuthResponse> authenticateStudent(AuthRequest request) {
         Student student = studentRepository.findByEmail(request.email())
                 .orElseThrow(() -> new UsernameNotFoundException("Student not found"));
 
-        if (!passwordEncoder.matches(request.password(), student.getPassword())) {
-            throw new BadCredentialsException("Invalid password");
-        }
+        return passwordHashingService.matches(request.password(), student.getPassword()).thenApplyAsync(matches -> {
+            if (!matches) {
+                throw new BadCredentialsException("Invalid password");
+            }
+            rehashIfNeeded(student.getId(), request.password(), student.getPassword(), studentRepository::updatePassword);
 
-        String token = jwtTokenUtil.generateToken(student.getEmail(), student.getId(), "STUDENT","Студент");
-        return new AuthResponse(token, student.getId(), student.getEmail(), "STUDENT", "Студент");
+            String token = jwtTokenUtil.generateToken(student.getEmail(), student.getId(), "STUDENT","Студент");
+            return new AuthResponse(token, student.getId(), student.getEmail(), "STUDENT", "Студент");
+        }, applicationExecutor);
     }
 
-    public AuthResponse authenticateWorker(AuthRequest request) {
+    public CompletableFuture<AuthResponse> authenticateWorker(AuthRequest request) {
         Worker worker = workerRepository.findByEmail(request.email())
                 .orElseThrow(() -> new UsernameNotFoundException("Worker not found"));
 
-        if (!passwordEncoder.matches(request.password(), worker.getPassword())) {
-            throw new BadCredentialsException("Invalid password");
-        }
+        return passwordHashingService.matches(request.password(), worker.getPassword()).thenApplyAsync(matches -> {
+            if (!matches) {
+                throw new BadCredentialsException("Invalid password");
+            }
+            rehashIfNeeded(worker.getId(), request.password(), worker.getPassword(), workerRepository::updatePassword);
+
+            if (worker.getRole().getName().equals("Преподаватель")) {
+                String token = jwtTokenUtil.generateToken(
+                        worker.getEmail(),
+                        worker.getId(),
+                        "TEACHER",
+                        worker.getRole().getName()
+                );
+                return new AuthResponse(
+                        token,
+                        worker.getId(),
+                        worker.getEmail(),
+                        "TEACHER",
+                        worker.getRole().getName()
+                );
+            }
+            else {
+                String token = jwtTokenUtil.generateToken(
+                        worker.getEmail(),
+                        worker.getId(),
+                        "ADMIN",
+                        worker.getRole().getName()
+                );
+                return new AuthResponse(
+                        token,
+                        worker.getId(),
+                        worker.getEmail(),
+                        "ADMIN",
+                        worker.getRole().getName()
+                );
+            }
+        }, applicationExecutor);
+    }
 
-        if (worker.getRole().getName().equals("Преподаватель")) {
-            String token = jwtTokenUtil.generateToken(
-                    worker.getEmail(),
-                    worker.getId(),
-                    "TEACHER",
-                    worker.getRole().getName()
-            );
-            return new AuthResponse(
-                    token,
-                    worker.getId(),
-                    worker.getEmail(),
-                    "TEACHER",
-                    worker.getRole().getName()
-            );
+    // Пересчёт хэша после успешного входа, если он создан с меньшей стоимостью BCrypt, чем настроена сейчас.
+    // Ответ пользователю не ждёт пересчёта, при перегрузке пула попытка переносится на следующий вход
+    private void rehashIfNeeded(Integer userId, String rawPassword, String encodedPassword,
+                                BiConsumer<Integer, String> passwordUpdater) {
+        if (!passwordHashingService.upgradeEncoding(encodedPassword)) {
+            return;
         }
-        else {
-            String token = jwtTokenUtil.generateToken(
-                    worker.getEmail(),
-                    worker.getId(),
-                    "ADMIN",
-                    worker.getRole().getName()
-            );
-            return new AuthResponse(
-                    token,
-                    worker.getId(),
-                    worker.getEmail(),
-                    "ADMIN",
-                    worker.getRole().getName()
-            );
+        try {
+            passwordHashingService.encode(rawPassword)
+                    .thenAcceptAsync(newPassword -> passwordUpdater.accept(userId, newPassword), applicationExecutor)
+                    .exceptionally(e -> {
+                        log.warn("Failed to rehash password for user {}", userId, e);
+                        return null;
+                    });
+        } catch (ResponseStatusException e) {
+            log.debug("Password rehash for user {} postponed: hashing pool is saturated", userId);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package dev.lms.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Кэш сериализованного каталога курсов. Тело ответа хранится готовым JSON вместе с ETag,
+// при одновременных промахах загрузку выполняет один поток, остальные ждут его результат
+@Component
+@RequiredArgsConstructor
+public class CourseCatalogCache {
+    private final ObjectMapper objectMapper;
+    private final ConcurrentHashMap<View, CompletableFuture<Entry>> entries = new ConcurrentHashMap<>();
+
+    public enum View {
+        SHORT,
+        DETAILS
+    }
+
+    public record Entry(byte[] body, String etag) {
+    }
+
+    public Entry get(View view, Supplier<?> loader) {
+        CompletableFuture<Entry> future = entries.get(view);
+        if (future == null) {
+            CompletableFuture<Entry> created = new CompletableFuture<>();
+            future = entries.putIfAbsent(view, created);
+            if (future == null) {
+                future = created;
+                load(view, created, loader);
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Сброс после коммита: до коммита загрузчик мог бы снова закэшировать старые данные
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.clear();
+                }
+            });
+        } else {
+            entries.clear();
+        }
+    }
+
+    private void load(View view, CompletableFuture<Entry> future, Supplier<?> loader) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(loader.get());
+            future.complete(new Entry(body, ETags.strong(body)));
+        } catch (JsonProcessingException e) {
+            entries.remove(view, future);
+            future.completeExceptionally(new IllegalStateException("Failed to serialize course catalogue", e));
+        } catch (RuntimeException e) {
+            // Ошибку не кэшируем, следующий запрос попробует загрузить снова
+            entries.remove(view, future);
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -16,18 +16,25 @@ import java.util.Optional;
 @Service
 public class CourseCategoryService {
     private final CourseCategoryRepository courseCategoryRepository;
+    private final CourseCatalogCache courseCatalogCache;
+    private final ReferenceDataRegistry referenceData;
 
-    public CourseCategoryService(CourseCategoryRepository courseCategoryRepository) {
+    public CourseCategoryService(CourseCategoryRepository courseCategoryRepository, CourseCatalogCache courseCatalogCache,
+                                 ReferenceDataRegistry referenceData) {
         this.courseCategoryRepository = courseCategoryRepository;
+        this.courseCatalogCache = courseCatalogCache;
+        this.referenceData = referenceData;
     }
 
     public List<Category> getAllCategories() {
-        return courseCategoryRepository.findAll();
+        return referenceData.categories();
     }
 
     @Transactional
     public Category createCategory(Category category) {
-        return courseCategoryRepository.save(category);
+        Category savedCategory = courseCategoryRepository.save(category);
+        referenceData.refresh();
+        return savedCategory;
     }
 
     public void deleteCategory(Integer categoryId) {
@@ -35,5 +42,8 @@ public class CourseCategoryService {
                 .orElseThrow(() -> new RuntimeException("Category not found with id: " + categoryId));
 
         courseCategoryRepository.deleteById(categoryId);
+        // Название категории входит в каталог курсов
+        courseCatalogCache.invalidate();
+        referenceData.refresh();
     }
 }
@@ -1,29 +1,39 @@
 package dev.lms.service;
 
 import dev.lms.dto.CourseDetailsDto;
+import dev.lms.dto.CourseFilterDto;
+import dev.lms.dto.CourseSearchResultDto;
 import dev.lms.dto.CourseShortDto;
+import dev.lms.dto.CursorPageDto;
+import dev.lms.models.Category;
 import dev.lms.models.Course;
+import dev.lms.models.CourseStatus;
 import dev.lms.models.Group;
 import dev.lms.models.Worker;
-import dev.lms.repository.CourseCategoryRepository;
 import dev.lms.repository.CourseRepository;
-import dev.lms.repository.CourseStatusRepository;
 import dev.lms.repository.WorkerRepository;
+import dev.lms.search.CourseSearchIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CourseService {
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final CourseRepository courseRepository;
-    private final CourseCategoryRepository courseCategoryRepository;
-    private final CourseStatusRepository courseStatusRepository;
+    private final ReferenceDataRegistry referenceData;
     private final WorkerRepository workerRepository;
-
+    private final CourseCatalogCache courseCatalogCache;
+    private final CourseSearchIndex courseSearchIndex;
+    private final CourseWorkspaceService courseWorkspaceService;
 
     public List<CourseShortDto> getAllCourses() {
         return courseRepository.findAllWithRelations().stream()
@@ -37,6 +47,33 @@ public class CourseService {
                 .collect(Collectors.toList());
     }
 
+    // Каталог в виде готового JSON с ETag, пересобирается только после изменения курсов
+    public CourseCatalogCache.Entry getCachedCourses() {
+        return courseCatalogCache.get(CourseCatalogCache.View.SHORT, this::getAllCourses);
+    }
+
+    public CourseCatalogCache.Entry getCachedCoursesWithDetails() {
+        return courseCatalogCache.get(CourseCatalogCache.View.DETAILS, this::getAllCoursesWithDetails);
+    }
+
+
+    // Постраничный каталог: курсор - позиция последнего курса страницы (start_date, course_id)
+    @Transactional(readOnly = true)
+    public CursorPageDto<CourseShortDto> getCoursesPage(CourseFilterDto filter, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Cursors.Position after = Cursors.decode(cursor);
+
+        List<CourseShortDto> courses = courseRepository.findPage(filter,
+                after != null ? after.time() : null,
+                after != null ? after.id() : null,
+                limit + 1);
+        return Cursors.page(courses, limit, course -> Cursors.encode(course.getStartDate(), course.getId()));
+    }
+
+    // Полнотекстовый поиск по индексу в памяти
+    public CourseSearchResultDto searchCourses(String query, Integer categoryId, Integer statusId, int limit) {
+        return courseSearchIndex.search(query, categoryId, statusId, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
 
     public CourseDetailsDto getCourseDetails(Integer id) {
         Course course = courseRepository.findByIdWithDetails(id)
@@ -54,10 +91,10 @@ public class CourseService {
     public Course createCourse(CourseDetailsDto courseDto, Integer workerId) {
         Course course = new Course();
 
-        course.setCategory(courseCategoryRepository.findById(courseDto.getCategoryId())
+        course.setCategory(referenceData.category(courseDto.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Категория не найдена с id: ")));
 
-        course.setStatus(courseStatusRepository.findById(courseDto.getStatusId())
+        course.setStatus(referenceData.courseStatus(courseDto.getStatusId())
                 .orElseThrow(() -> new RuntimeException("Статус не найден с id:")));
 
         Worker worker = workerRepository.findByIdWithRelations(workerId)
@@ -72,13 +109,46 @@ public class CourseService {
         course.setResultCompetence(courseDto.getResultCompetence());
         course.getWorker().add(worker);
 
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        courseCatalogCache.invalidate();
+        courseSearchIndex.index(savedCourse);
+        return savedCourse;
     }
 
+    @Transactional
+    public Optional<Course> updateCourse(Integer id, Map<String, String> requestBody) {
+        Course updateCourse = courseRepository.findById(Long.valueOf(id)).orElse(null);
+        if (updateCourse == null) {
+            return Optional.empty();
+        }
+
+        Category category = referenceData.category(requestBody.get("category")).orElse(null);
+        CourseStatus status = referenceData.courseStatus(requestBody.get("status")).orElse(null);
+
+        updateCourse.setName(requestBody.get("name"));
+        updateCourse.setDescription(requestBody.get("description"));
+        updateCourse.setStudyDirection(requestBody.get("studyDirection"));
+        updateCourse.setStartDate(LocalDateTime.parse(requestBody.get("startDate")));
+        updateCourse.setEndDate(LocalDateTime.parse(requestBody.get("endDate")));
+        updateCourse.setResultCompetence(requestBody.get("resultCompetence"));
+        updateCourse.setHoursCount(Integer.valueOf(requestBody.get("hoursCount")));
+        updateCourse.setCategory(category);
+        updateCourse.setStatus(status);
+
+        courseRepository.save(updateCourse);
+        courseCatalogCache.invalidate();
+        courseWorkspaceService.contentChanged(id);
+        courseSearchIndex.index(updateCourse);
+        return Optional.of(updateCourse);
+    }
+
+    @Transactional
     public void deleteCourse(Long courseId) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Request not found with id: " + courseId));
 
         courseRepository.deleteById(courseId);
+        courseCatalogCache.invalidate();
+        courseSearchIndex.delete(course.getId());
     }
 }
\ No newline at end of file
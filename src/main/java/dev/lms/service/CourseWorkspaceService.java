@@ -0,0 +1,187 @@
+package dev.lms.service;
+
+import dev.lms.dto.AssignmentDto;
+import dev.lms.dto.AttachedFileDto;
+import dev.lms.dto.CourseDetailsDto;
+import dev.lms.dto.CourseWorkspaceDto;
+import dev.lms.dto.CourseWorkspaceDto.AssignmentWithFiles;
+import dev.lms.dto.EducationMaterialDto;
+import dev.lms.dto.GroupDto;
+import dev.lms.dto.StudyingProgressDto;
+import dev.lms.models.Assignment;
+import dev.lms.repository.AssignmentRepository;
+import dev.lms.repository.AttachedFileRepository;
+import dev.lms.repository.CourseRepository;
+import dev.lms.repository.EducationMaterialRepository;
+import dev.lms.repository.GroupRepository;
+import dev.lms.repository.StudyingProgressRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+// Сборка страницы курса: независимые части читаются параллельно, каждая в своей
+// read-only транзакции, общее число запросов не зависит от числа заданий и файлов
+@Service
+public class CourseWorkspaceService {
+    private final CourseRepository courseRepository;
+    private final EducationMaterialRepository educationMaterialRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final AttachedFileRepository attachedFileRepository;
+    private final GroupRepository groupRepository;
+    private final StudyingProgressRepository progressRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor executor;
+
+    public CourseWorkspaceService(CourseRepository courseRepository,
+                                  EducationMaterialRepository educationMaterialRepository,
+                                  AssignmentRepository assignmentRepository,
+                                  AttachedFileRepository attachedFileRepository,
+                                  GroupRepository groupRepository,
+                                  StudyingProgressRepository progressRepository,
+                                  NamedParameterJdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${course.workspace.pool-size:4}") int poolSize,
+                                  @Value("${course.workspace.queue-capacity:100}") int queueCapacity) {
+        this.courseRepository = courseRepository;
+        this.educationMaterialRepository = educationMaterialRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.attachedFileRepository = attachedFileRepository;
+        this.groupRepository = groupRepository;
+        this.progressRepository = progressRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        // Пул ограничивает число соединений с БД, которые страницы курсов занимают одновременно.
+        // При переполнении очереди часть выполняется в потоке запроса
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "course-workspace-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public CourseWorkspaceDto getWorkspace(Integer courseId, Integer studentId) {
+        CompletableFuture<CourseDetailsDto> course = async(() -> courseRepository.findByIdWithDetails(courseId)
+                .map(CourseDetailsDto::new)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found")));
+        CompletableFuture<List<EducationMaterialDto>> materials = async(() ->
+                educationMaterialRepository.findAllByCourseId(courseId).stream()
+                        .map(EducationMaterialDto::new)
+                        .toList());
+        CompletableFuture<List<AssignmentWithFiles>> assignments = async(() -> loadAssignments(courseId));
+        CompletableFuture<List<GroupDto>> groups = async(() ->
+                groupRepository.findAllByCourseId(courseId).stream()
+                        .map(GroupDto::new)
+                        .toList());
+        CompletableFuture<StudyingProgressDto> progress = studentId == null
+                ? CompletableFuture.completedFuture(null)
+                : async(() -> progressRepository.findProgressView(studentId, courseId).orElse(null));
+
+        try {
+            CompletableFuture.allOf(course, materials, assignments, groups, progress).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return new CourseWorkspaceDto(course.join(), materials.join(), assignments.join(), groups.join(), progress.join());
+    }
+
+    // ETag страницы без её сборки: версия содержимого курса, заполненность групп и прогресс студента.
+    // Всё остальное в ответе меняется только вместе с версией курса
+    public String etag(Integer courseId, Integer studentId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("courseId", courseId)
+                .addValue("studentId", studentId);
+        StringBuilder key = new StringBuilder();
+        jdbcTemplate.query("""
+                        SELECT c.workspace_version, g.group_id, g.student_count
+                        FROM course c
+                        LEFT JOIN student_group g ON g.course_id = c.course_id
+                        WHERE c.course_id = :courseId
+                        ORDER BY g.group_id""",
+                params,
+                rs -> {
+                    key.append(rs.getLong("workspace_version")).append(':')
+                            .append(rs.getObject("group_id")).append('=').append(rs.getObject("student_count")).append(';');
+                });
+        if (key.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found");
+        }
+        if (studentId != null) {
+            jdbcTemplate.query("""
+                            SELECT p.progress_id, p.completion_percentage, p.studying_status_id,
+                                   p.education_start_date, p.graduation_date
+                            FROM studying_progress p
+                            JOIN request r ON r.request_id = p.request_id
+                            WHERE r.student_id = :studentId AND r.course_id = :courseId""",
+                    params,
+                    rs -> {
+                        key.append('|').append(rs.getInt("progress_id"))
+                                .append(':').append(rs.getObject("completion_percentage"))
+                                .append(':').append(rs.getInt("studying_status_id"))
+                                .append(':').append(rs.getTimestamp("education_start_date"))
+                                .append(':').append(rs.getTimestamp("graduation_date"));
+                    });
+        }
+        return ETags.strong(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Курс, его материалы, задания, файлы заданий или группы изменены. Вызывается в транзакции изменения
+    public void contentChanged(Integer courseId) {
+        jdbcTemplate.update("UPDATE course SET workspace_version = workspace_version + 1 WHERE course_id = :courseId",
+                new MapSqlParameterSource("courseId", courseId));
+    }
+
+    // Файлы всех заданий курса одним запросом вместо запроса на каждое задание
+    private List<AssignmentWithFiles> loadAssignments(Integer courseId) {
+        List<Assignment> assignments = assignmentRepository.findAllByCourseId(courseId);
+        if (assignments.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, List<AttachedFileDto>> files = attachedFileRepository
+                .findAllByAssignmentIdIn(assignments.stream().map(Assignment::getId).toList()).stream()
+                .map(AttachedFileDto::new)
+                .collect(Collectors.groupingBy(AttachedFileDto::getTaskId));
+        return assignments.stream()
+                .map(assignment -> new AssignmentWithFiles(new AssignmentDto(assignment),
+                        files.getOrDefault(assignment.getId(), List.of())))
+                .toList();
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> loader) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> loader.get()), executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
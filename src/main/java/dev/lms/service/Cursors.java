@@ -0,0 +1,49 @@
+package dev.lms.service;
+
+import dev.lms.dto.CursorPageDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// Курсоры keyset-пагинации: позиция (время, id) последней строки страницы в base64url
+public final class Cursors {
+
+    private Cursors() {
+    }
+
+    public record Position(LocalDateTime time, Integer id) {
+    }
+
+    public static String encode(LocalDateTime time, Integer id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((time + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null для первой страницы, 400 для испорченного курсора
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new Position(LocalDateTime.parse(position[0]), Integer.valueOf(position[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    // rows запрошены с лимитом limit + 1: лишняя строка означает, что есть следующая страница
+    public static <T> CursorPageDto<T> page(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPageDto<>(rows, null);
+        }
+        List<T> page = List.copyOf(rows.subList(0, limit));
+        return new CursorPageDto<>(page, cursorOf.apply(page.get(limit - 1)));
+    }
+}
@@ -0,0 +1,39 @@
+package dev.lms.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Строгие ETag по содержимому ответа или по размеру и времени изменения файла, проверка заголовка If-None-Match
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String strong(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Файлы выгрузки не перезаписываются, поэтому размера и времени изменения достаточно без чтения содержимого
+    public static String forFile(long size, long lastModifiedMillis) {
+        return "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModifiedMillis) + "\"";
+    }
+
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
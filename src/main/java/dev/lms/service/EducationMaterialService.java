@@ -7,6 +7,7 @@ import dev.lms.models.Group;
 import dev.lms.repository.CourseRepository;
 import dev.lms.repository.EducationMaterialRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,11 +18,17 @@ import java.util.stream.Collectors;
 public class EducationMaterialService {
     private final EducationMaterialRepository educationMaterialRepository;
     private final CourseRepository courseRepository;
+    private final StudyingCompletionService completionService;
+    private final CourseWorkspaceService courseWorkspaceService;
 
 
-    public EducationMaterialService(EducationMaterialRepository educationMaterialRepository, CourseRepository courseRepository) {
+    public EducationMaterialService(EducationMaterialRepository educationMaterialRepository, CourseRepository courseRepository,
+                                    StudyingCompletionService completionService,
+                                    CourseWorkspaceService courseWorkspaceService) {
         this.educationMaterialRepository = educationMaterialRepository;
         this.courseRepository = courseRepository;
+        this.completionService = completionService;
+        this.courseWorkspaceService = courseWorkspaceService;
     }
 
     public List<EducationMaterialDto> getMaterialsByCourseId(Integer courseId) {
@@ -31,6 +38,7 @@ public class EducationMaterialService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional
     public EducationMaterialDto addMaterial(Integer courseId, EducationMaterialDto educationMaterialDto) {
         Course course = courseRepository.findById(Long.valueOf(courseId))
                 .orElseThrow(() -> new RuntimeException("Курс не найден"));
@@ -41,15 +49,22 @@ public class EducationMaterialService {
         educationMaterial.setText(educationMaterialDto.getText());
         educationMaterial.setAddingDate(LocalDateTime.now());
         EducationMaterial savedMaterial = educationMaterialRepository.save(educationMaterial);
+        completionService.itemAdded(course.getId());
+        courseWorkspaceService.contentChanged(course.getId());
         return new EducationMaterialDto(savedMaterial);
     }
 
 
+    @Transactional
     public void deleteMaterial(Integer materialId) {
         EducationMaterial material = educationMaterialRepository.findById(materialId)
                 .orElseThrow(() -> new RuntimeException("Material not found with id: " + materialId));
 
+        completionService.materialRemoved(materialId);
         educationMaterialRepository.deleteById(materialId);
+        if (material.getCourse() != null) {
+            courseWorkspaceService.contentChanged(material.getCourse().getId());
+        }
     }
 
 }
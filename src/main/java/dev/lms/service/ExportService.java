@@ -0,0 +1,165 @@
+package dev.lms.service;
+
+import dev.lms.dto.RequestFilterDto;
+import dev.lms.export.ExportFormat;
+import dev.lms.export.TableWriter;
+import dev.lms.jwt.JwtPrincipal;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+// Выгрузка заявок, состава и прогресса групп. Строки читаются курсором с фиксированным fetch size
+// (в PostgreSQL курсор работает только внутри транзакции) и сразу пишутся в ответ, без списка в памяти
+@Service
+public class ExportService {
+    private static final int FETCH_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public ExportService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        JdbcTemplate cursorTemplate = new JdbcTemplate(dataSource);
+        cursorTemplate.setFetchSize(FETCH_SIZE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(cursorTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // Выгрузки содержат контакты студентов и доступны только сотрудникам
+    public void checkAccess(JwtPrincipal user) {
+        if ("STUDENT".equals(user.userType())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Export is available to staff only");
+        }
+    }
+
+    public StreamingResponseBody exportRequests(RequestFilterDto filter, ExportFormat format) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT r.request_id, r.create_time, r.processing_time, st.name AS status_name,
+                       c.course_name, g.group_name,
+                       s.surname, s.name, s.second_name, s.email,
+                       w.surname AS worker_surname, w.name AS worker_name, r.request_text
+                FROM request r
+                JOIN request_status st ON st.request_status_id = r.request_status_id
+                JOIN course c ON c.course_id = r.course_id
+                JOIN student s ON s.student_id = r.student_id
+                LEFT JOIN student_group g ON g.group_id = r.group_id
+                LEFT JOIN worker w ON w.worker_id = r.worker_id
+                WHERE 1 = 1
+                """);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (filter.getStatusId() != null) {
+            sql.append(" AND r.request_status_id = :statusId");
+            params.addValue("statusId", filter.getStatusId());
+        }
+        if (filter.getCourseId() != null) {
+            sql.append(" AND r.course_id = :courseId");
+            params.addValue("courseId", filter.getCourseId());
+        }
+        if (filter.isUnassigned()) {
+            sql.append(" AND r.group_id IS NULL");
+        } else if (filter.getGroupId() != null) {
+            sql.append(" AND r.group_id = :groupId");
+            params.addValue("groupId", filter.getGroupId());
+        }
+        if (filter.getCreatedFrom() != null) {
+            sql.append(" AND r.create_time >= :createdFrom");
+            params.addValue("createdFrom", filter.getCreatedFrom());
+        }
+        if (filter.getCreatedTo() != null) {
+            sql.append(" AND r.create_time < :createdTo");
+            params.addValue("createdTo", filter.getCreatedTo());
+        }
+        sql.append(" ORDER BY r.create_time, r.request_id");
+
+        return stream(format, "Заявки", sql.toString(), params,
+                List.of("ID заявки", "Создана", "Обработана", "Статус", "Курс", "Группа",
+                        "Фамилия", "Имя", "Отчество", "Email", "Фамилия сотрудника", "Имя сотрудника", "Комментарий"),
+                rs -> Arrays.asList(rs.getInt("request_id"), text(rs, "create_time"), text(rs, "processing_time"),
+                        text(rs, "status_name"), text(rs, "course_name"), text(rs, "group_name"),
+                        text(rs, "surname"), text(rs, "name"), text(rs, "second_name"), text(rs, "email"),
+                        text(rs, "worker_surname"), text(rs, "worker_name"), text(rs, "request_text")));
+    }
+
+    // Состав группы: те же студенты, что и в /api/requests/groups/{id}/students, без паролей
+    public StreamingResponseBody exportGroupRoster(Integer groupId, ExportFormat format) {
+        return stream(format, "Состав группы", """
+                        SELECT s.student_id, s.surname, s.name, s.second_name, s.email
+                        FROM request r
+                        JOIN student s ON s.student_id = r.student_id
+                        WHERE r.group_id = :groupId
+                        ORDER BY s.surname, s.name, s.student_id""",
+                new MapSqlParameterSource("groupId", groupId),
+                List.of("ID студента", "Фамилия", "Имя", "Отчество", "Email"),
+                rs -> Arrays.asList(rs.getInt("student_id"), text(rs, "surname"), text(rs, "name"),
+                        text(rs, "second_name"), text(rs, "email")));
+    }
+
+    public StreamingResponseBody exportGroupProgress(Integer groupId, ExportFormat format) {
+        return stream(format, "Прогресс группы", """
+                        SELECT s.student_id, s.surname, s.name, s.second_name, s.email,
+                               p.completion_percentage, ss.name AS status_name,
+                               p.education_start_date, p.graduation_date, p.final_grade
+                        FROM studying_progress p
+                        JOIN request r ON r.request_id = p.request_id
+                        JOIN student s ON s.student_id = r.student_id
+                        JOIN studying_status ss ON ss.studying_status_id = p.studying_status_id
+                        WHERE r.group_id = :groupId
+                        ORDER BY s.surname, s.name, s.student_id""",
+                new MapSqlParameterSource("groupId", groupId),
+                List.of("ID студента", "Фамилия", "Имя", "Отчество", "Email",
+                        "Процент прохождения", "Статус", "Начало обучения", "Окончание обучения", "Итоговая оценка"),
+                rs -> Arrays.asList(rs.getInt("student_id"), text(rs, "surname"), text(rs, "name"),
+                        text(rs, "second_name"), text(rs, "email"), rs.getObject("completion_percentage", Integer.class),
+                        text(rs, "status_name"), text(rs, "education_start_date"), text(rs, "graduation_date"),
+                        rs.getObject("final_grade", Integer.class)));
+    }
+
+    private StreamingResponseBody stream(ExportFormat format, String sheetName, String sql,
+                                         MapSqlParameterSource params, List<String> header, RowMapper rowMapper) {
+        return out -> {
+            try (TableWriter writer = format.open(out, sheetName)) {
+                writer.writeRow(header);
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.query(sql, params, rs -> {
+                            try {
+                                writer.writeRow(rowMapper.map(rs));
+                            } catch (IOException e) {
+                                // Клиент прервал загрузку: исключение откатывает транзакцию и закрывает курсор
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    // Значения колонок могут быть NULL, поэтому строки собираются через Arrays.asList, а не List.of.
+    // Даты выгружаются строкой без долей секунды
+    private static String text(ResultSet rs, String column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof java.sql.Timestamp timestamp) {
+            return timestamp.toLocalDateTime().withNano(0).toString().replace('T', ' ');
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    @FunctionalInterface
+    private interface RowMapper {
+        List<?> map(ResultSet rs) throws SQLException;
+    }
+}
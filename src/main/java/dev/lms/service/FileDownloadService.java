@@ -0,0 +1,151 @@
+package dev.lms.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+// Скачивание загруженных файлов без чтения в память. Если контейнер поддерживает sendfile (Tomcat NIO),
+// файл отдаёт сам контейнер из ядра; иначе FileChannel.transferTo пишет в ответ через буфер постоянного
+// размера. Поддерживаются Range с одним интервалом, If-Range и If-None-Match
+@Service
+public class FileDownloadService {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Path root;
+
+    public FileDownloadService(@Value("${upload.path}") String uploadPath) {
+        this.root = Paths.get(uploadPath).toAbsolutePath().normalize();
+    }
+
+    public void send(String filename, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String decodedFilename = URLDecoder.decode(filename, StandardCharsets.UTF_8);
+        // Имя из URL не должно выводить за каталог загрузок
+        Path file;
+        try {
+            file = root.resolve(decodedFilename).normalize();
+        } catch (InvalidPathException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
+        }
+        if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File not found");
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = ETags.forFile(size, lastModified);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (ETags.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long count = size;
+        HttpRange range = requestedRange(request, etag, lastModified);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(size);
+                count = range.getRangeEnd(size) - start + 1;
+            } catch (IllegalArgumentException e) {
+                count = 0;
+            }
+            // Интервал за концом файла (в том числе любой интервал пустого файла)
+            if (start >= size || count <= 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (start + count - 1) + "/" + size);
+        }
+
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        // Русские имена файлов передаются в filename* (RFC 5987), латинские как есть
+        ContentDisposition.Builder disposition = ContentDisposition.attachment();
+        if (StandardCharsets.US_ASCII.newEncoder().canEncode(decodedFilename)) {
+            disposition.filename(decodedFilename);
+        } else {
+            disposition.filename(decodedFilename, StandardCharsets.UTF_8);
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.build().toString());
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + count;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    // Один интервал из Range, если If-Range отсутствует или совпадает с текущей версией файла.
+    // Некорректный заголовок и несколько интервалов игнорируются: отдаётся весь файл
+    private static HttpRange requestedRange(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.trim().equals(etag)) {
+            long ifRangeDate;
+            try {
+                ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            // Дата в заголовке с точностью до секунды
+            if (ifRangeDate == -1 || ifRangeDate / 1000 != lastModified / 1000) {
+                return null;
+            }
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
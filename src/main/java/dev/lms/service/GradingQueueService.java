@@ -0,0 +1,167 @@
+package dev.lms.service;
+
+import dev.lms.dto.CursorPageDto;
+import dev.lms.dto.GradingQueueItemDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+// Очередь проверки: непроверенные решения по всем курсам преподавателя (course_worker), старые первыми.
+// Решение выдаётся в аренду одному преподавателю условным UPDATE; истёкшая аренда не мешает выдать
+// решение снова, поэтому отдельной задачи возврата в очередь нет
+@Service
+public class GradingQueueService {
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_LEASE_SIZE = 20;
+    private static final int MAX_ATTEMPTS = 5;
+
+    // Решения курсов преподавателя без оценки, не арендованные другим преподавателем
+    private static final String QUEUE_SQL = """
+            SELECT s.solution_id, s.sending_date, s.solution_comment, s.lease_worker_id, s.lease_expires_at,
+                   a.assignment_id, a.assignment_name, c.course_id, c.course_name,
+                   st.student_id, st.surname, st.name, st.second_name
+            FROM solution s
+            JOIN assignment a ON a.assignment_id = s.assignment_id
+            JOIN course c ON c.course_id = a.course_id
+            LEFT JOIN student st ON st.student_id = s.student_id
+            WHERE s.solution_score IS NULL
+              AND a.course_id IN (SELECT cw.course_id FROM course_worker cw WHERE cw.worker_id = :workerId)
+              AND (s.lease_worker_id IS NULL OR s.lease_worker_id = :workerId OR s.lease_expires_at < :now)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Duration leaseDuration;
+
+    public GradingQueueService(NamedParameterJdbcTemplate jdbcTemplate,
+                               @Value("${solutions.grading-lease.minutes:10}") long leaseMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseDuration = Duration.ofMinutes(leaseMinutes);
+    }
+
+    // Страница очереди по индексу (sending_date, solution_id), без аренды
+    public CursorPageDto<GradingQueueItemDto> getQueue(Integer workerId, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Cursors.Position after = Cursors.decode(cursor);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("workerId", workerId)
+                .addValue("now", now())
+                .addValue("limit", limit + 1);
+        StringBuilder sql = new StringBuilder(QUEUE_SQL);
+        if (after != null) {
+            sql.append(" AND (s.sending_date, s.solution_id) > (:afterTime, :afterId)");
+            params.addValue("afterTime", Timestamp.valueOf(after.time()));
+            params.addValue("afterId", after.id());
+        }
+        sql.append(" ORDER BY s.sending_date, s.solution_id LIMIT :limit");
+
+        List<GradingQueueItemDto> rows = jdbcTemplate.query(sql.toString(), params, itemMapper(workerId));
+        return Cursors.page(rows, limit, item -> Cursors.encode(item.sendingDate(), item.solutionId()));
+    }
+
+    // Выдать в аренду до size самых старых свободных решений. Если другой преподаватель успел взять
+    // часть выбранных решений, выбираются следующие
+    public List<GradingQueueItemDto> lease(Integer workerId, int size) {
+        int wanted = Math.max(1, Math.min(size, MAX_LEASE_SIZE));
+        LocalDateTime now = now();
+        Timestamp expiresAt = Timestamp.valueOf(now.plus(leaseDuration));
+        List<Integer> leased = new ArrayList<>();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && leased.size() < wanted; attempt++) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("workerId", workerId)
+                    .addValue("now", Timestamp.valueOf(now))
+                    .addValue("expiresAt", expiresAt)
+                    .addValue("limit", wanted - leased.size());
+            List<Integer> candidates = jdbcTemplate.queryForList("""
+                            SELECT s.solution_id
+                            FROM solution s
+                            JOIN assignment a ON a.assignment_id = s.assignment_id
+                            WHERE s.solution_score IS NULL
+                              AND a.course_id IN (SELECT cw.course_id FROM course_worker cw WHERE cw.worker_id = :workerId)
+                              AND (s.lease_worker_id IS NULL OR s.lease_expires_at < :now)
+                            ORDER BY s.sending_date, s.solution_id
+                            LIMIT :limit""",
+                    params, Integer.class);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            // Условие аренды проверяется повторно под блокировкой строки: из двух преподавателей
+            // решение получит только первый
+            jdbcTemplate.update("""
+                            UPDATE solution SET lease_worker_id = :workerId, lease_expires_at = :expiresAt
+                            WHERE solution_id IN (:ids) AND solution_score IS NULL
+                              AND (lease_worker_id IS NULL OR lease_expires_at < :now)""",
+                    params.addValue("ids", candidates));
+            leased.addAll(jdbcTemplate.queryForList("""
+                            SELECT solution_id FROM solution
+                            WHERE solution_id IN (:ids) AND lease_worker_id = :workerId AND lease_expires_at = :expiresAt""",
+                    params, Integer.class));
+        }
+        if (leased.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(QUEUE_SQL + " AND s.solution_id IN (:ids) ORDER BY s.sending_date, s.solution_id",
+                new MapSqlParameterSource()
+                        .addValue("workerId", workerId)
+                        .addValue("now", Timestamp.valueOf(now))
+                        .addValue("ids", leased),
+                itemMapper(workerId));
+    }
+
+    // Вернуть решение в очередь раньше срока
+    public boolean release(Integer workerId, Integer solutionId) {
+        return jdbcTemplate.update("""
+                        UPDATE solution SET lease_worker_id = NULL, lease_expires_at = NULL
+                        WHERE solution_id = :solutionId AND lease_worker_id = :workerId""",
+                new MapSqlParameterSource()
+                        .addValue("solutionId", solutionId)
+                        .addValue("workerId", workerId)) == 1;
+    }
+
+    // Перед оценкой: снимает аренду, если решение свободно или арендовано этим преподавателем.
+    // false - решение сейчас проверяет другой преподаватель
+    public boolean finishGrading(Integer workerId, Integer solutionId) {
+        return jdbcTemplate.update("""
+                        UPDATE solution SET lease_worker_id = NULL, lease_expires_at = NULL
+                        WHERE solution_id = :solutionId
+                          AND (lease_worker_id IS NULL OR lease_worker_id = :workerId OR lease_expires_at < :now)""",
+                new MapSqlParameterSource()
+                        .addValue("solutionId", solutionId)
+                        .addValue("workerId", workerId)
+                        .addValue("now", now())) == 1;
+    }
+
+    // Точность до микросекунд, как у timestamp в базе: по времени окончания аренды ищутся выданные решения
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static RowMapper<GradingQueueItemDto> itemMapper(Integer workerId) {
+        return (rs, rowNum) -> {
+            Timestamp leaseExpiresAt = rs.getTimestamp("lease_expires_at");
+            boolean leasedByCaller = workerId.equals(rs.getObject("lease_worker_id", Integer.class))
+                    && leaseExpiresAt != null && leaseExpiresAt.toLocalDateTime().isAfter(LocalDateTime.now());
+            return new GradingQueueItemDto(
+                    rs.getInt("solution_id"),
+                    rs.getTimestamp("sending_date").toLocalDateTime(),
+                    rs.getString("solution_comment"),
+                    rs.getInt("assignment_id"),
+                    rs.getString("assignment_name"),
+                    rs.getInt("course_id"),
+                    rs.getString("course_name"),
+                    rs.getObject("student_id", Integer.class),
+                    rs.getString("name"),
+                    rs.getString("second_name"),
+                    rs.getString("surname"),
+                    leasedByCaller ? leaseExpiresAt.toLocalDateTime() : null);
+        };
+    }
+}
@@ -0,0 +1,131 @@
+package dev.lms.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Учёт мест в группах. Место занимает каждая заявка с group_id этой группы (как в списке студентов группы).
+// Счётчик меняется условным UPDATE: проверка вместимости и увеличение выполняются одной командой,
+// блокируется только строка группы до конца транзакции, без блокировок таблиц и курса
+@Slf4j
+@Service
+public class GroupSeatService {
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public GroupSeatService(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Занять seats мест целиком или ничего; false - в группе нет столько свободных мест или группы нет
+    public boolean tryTakeSeats(Integer groupId, int seats) {
+        if (seats <= 0) {
+            return true;
+        }
+        return jdbcTemplate.update("""
+                        UPDATE student_group
+                        SET student_count = COALESCE(student_count, 0) + :seats
+                        WHERE group_id = :groupId
+                          AND (max_student_count IS NULL OR COALESCE(student_count, 0) + :seats <= max_student_count)""",
+                new MapSqlParameterSource()
+                        .addValue("groupId", groupId)
+                        .addValue("seats", seats)) == 1;
+    }
+
+    // Занять до seats мест, сколько осталось свободных. Возвращает число занятых мест
+    public int takeUpToSeats(Integer groupId, int seats) {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && seats > 0; attempt++) {
+            Integer free = jdbcTemplate.query("""
+                            SELECT CASE WHEN max_student_count IS NULL THEN :seats
+                                        ELSE max_student_count - COALESCE(student_count, 0) END AS free
+                            FROM student_group WHERE group_id = :groupId""",
+                            new MapSqlParameterSource()
+                                    .addValue("groupId", groupId)
+                                    .addValue("seats", seats),
+                            (rs, rowNum) -> rs.getInt("free"))
+                    .stream().findFirst().orElse(0);
+            if (free <= 0) {
+                return 0;
+            }
+            int wanted = Math.min(seats, free);
+            // Между чтением и UPDATE места могли занять, тогда пробуем снова с новым остатком
+            if (tryTakeSeats(groupId, wanted)) {
+                return wanted;
+            }
+        }
+        return 0;
+    }
+
+    public void releaseSeats(Integer groupId, int seats) {
+        if (groupId == null || seats <= 0) {
+            return;
+        }
+        jdbcTemplate.update("""
+                        UPDATE student_group
+                        SET student_count = GREATEST(COALESCE(student_count, 0) - :seats, 0)
+                        WHERE group_id = :groupId""",
+                new MapSqlParameterSource()
+                        .addValue("groupId", groupId)
+                        .addValue("seats", seats));
+    }
+
+    // Освобождение мест в нескольких группах одним батчем: groupId -> число мест.
+    // Группы обновляются по возрастанию id, чтобы параллельные батчи блокировали строки в одном порядке
+    public void releaseSeats(Map<Integer, Integer> seatsByGroup) {
+        if (seatsByGroup.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("""
+                        UPDATE student_group
+                        SET student_count = GREATEST(COALESCE(student_count, 0) - :seats, 0)
+                        WHERE group_id = :groupId""",
+                new TreeMap<>(seatsByGroup).entrySet().stream()
+                        .map(entry -> new MapSqlParameterSource()
+                                .addValue("groupId", entry.getKey())
+                                .addValue("seats", entry.getValue()))
+                        .toArray(MapSqlParameterSource[]::new));
+    }
+
+    // Исправление расхождений счётчика с фактическим числом заявок в группе.
+    // Расходящиеся группы ищутся без блокировок, затем каждая пересчитывается в своей транзакции
+    // под блокировкой строки группы, чтобы не затереть место, занятое параллельным одобрением
+    @Scheduled(fixedDelayString = "${groups.seat-reconciliation.interval-ms:3600000}",
+            initialDelayString = "${groups.seat-reconciliation.initial-delay-ms:60000}")
+    public void reconcile() {
+        List<Integer> drifted = jdbcTemplate.queryForList("""
+                        SELECT g.group_id
+                        FROM student_group g
+                        LEFT JOIN (SELECT group_id, COUNT(*) AS taken FROM request
+                                   WHERE group_id IS NOT NULL GROUP BY group_id) r ON r.group_id = g.group_id
+                        WHERE COALESCE(g.student_count, -1) <> COALESCE(r.taken, 0)""",
+                new MapSqlParameterSource(), Integer.class);
+
+        for (Integer groupId : drifted) {
+            transactionTemplate.executeWithoutResult(status -> {
+                MapSqlParameterSource params = new MapSqlParameterSource("groupId", groupId);
+                jdbcTemplate.query("SELECT group_id FROM student_group WHERE group_id = :groupId FOR UPDATE",
+                        params, rs -> {
+                        });
+                jdbcTemplate.update("""
+                                UPDATE student_group
+                                SET student_count = (SELECT COUNT(*) FROM request WHERE group_id = :groupId)
+                                WHERE group_id = :groupId""",
+                        params);
+            });
+        }
+        if (!drifted.isEmpty()) {
+            log.warn("Group seat counters repaired for {} groups: {}", drifted.size(), drifted);
+        }
+    }
+}
@@ -17,9 +17,10 @@ import java.util.stream.Collectors;
 public class GroupService {
     private final GroupRepository groupRepository;
     private final CourseRepository courseRepository;
+    private final CourseWorkspaceService courseWorkspaceService;
 
     public List<GroupDto> getAllGroups() {
-        return groupRepository.findAll().stream()
+        return groupRepository.findAllWithCourse().stream()
                 .map(GroupDto::new)
                 .collect(Collectors.toList());
     }
@@ -35,6 +36,7 @@ public class GroupService {
                 .orElseThrow(() -> new RuntimeException("Request not found with id: " + groupId));
 
         groupRepository.deleteById(groupId);
+        courseWorkspaceService.contentChanged(group.getCourse().getId());
     }
 
     @Transactional
@@ -44,9 +46,11 @@ public class GroupService {
         Course course = courseRepository.findById(groupDto.getCourseId());
         group.setName(groupDto.getName());
         group.setMaxStudentCount(groupDto.getMaxStudentCount());
+        group.setStudentCount(0);
 
         group.setCourse(course);
         Group addedGroup =  groupRepository.save(group);
+        courseWorkspaceService.contentChanged(course.getId());
 
         return new GroupDto(addedGroup);
     }
@@ -0,0 +1,121 @@
+package dev.lms.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Хэширование и проверка паролей BCrypt в отдельном ограниченном пуле,
+// чтобы всплеск логинов не занимал потоки Tomcat
+@Service
+public class PasswordHashingService {
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.bcrypt.pool-size:0}") int poolSize,
+                                  @Value("${security.bcrypt.queue-capacity:200}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("auth.bcrypt.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Задачи BCrypt, ожидающие свободного потока")
+                .register(meterRegistry);
+        Gauge.builder("auth.bcrypt.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("auth.bcrypt.latency")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchTimer = Timer.builder("auth.bcrypt.latency")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.bcrypt.rejected")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return submit(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    // Пакетное хэширование для импорта в том же ограниченном пуле. В очереди одновременно не больше
+    // задач импорта, чем потоков в пуле, поэтому место для логинов остаётся. Если очередь всё же занята
+    // логинами, хэш считается в потоке импорта
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        Semaphore inFlight = new Semaphore(executor.getMaximumPoolSize());
+        List<CompletableFuture<String>> hashes = new ArrayList<>(rawPasswords.size());
+        try {
+            for (CharSequence rawPassword : rawPasswords) {
+                Supplier<String> task = () -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword));
+                inFlight.acquire();
+                CompletableFuture<String> hash;
+                try {
+                    hash = CompletableFuture.supplyAsync(task, executor);
+                } catch (RejectedExecutionException e) {
+                    hash = CompletableFuture.completedFuture(task.get());
+                }
+                hash.whenComplete((value, error) -> inFlight.release());
+                hashes.add(hash);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Password hashing interrupted", e);
+        }
+        return hashes.stream().map(CompletableFuture::join).toList();
+    }
+
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> matchTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    // Хэш нужно пересчитать, если он создан с меньшей стоимостью, чем настроена сейчас
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Authentication service is busy, retry later");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
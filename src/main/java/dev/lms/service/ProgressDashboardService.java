@@ -0,0 +1,235 @@
+package dev.lms.service;
+
+import dev.lms.dto.ProgressDashboardDto;
+import dev.lms.dto.ProgressDashboardDto.Bucket;
+import dev.lms.dto.ProgressDashboardDto.Learner;
+import dev.lms.models.StudyingStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Сводка прогресса для преподавателя по группе или курсу. Считается одним запросом: строки
+// разного вида (итог, интервалы гистограммы, статусы, отстающие) объединены через UNION ALL.
+// Результат кэшируется до записи прогресса по курсу; при одновременных промахах запрос выполняет один поток
+@Service
+@RequiredArgsConstructor
+public class ProgressDashboardService {
+    public static final int MAX_SLOWEST = 50;
+    private static final int BUCKETS = 10;
+
+    private static final String DASHBOARD_SQL = """
+            WITH owner AS (%s),
+            scope AS (
+                SELECT p.request_id, r.student_id, COALESCE(p.completion_percentage, 0) AS percent,
+                       p.studying_status_id, p.graduation_date, p.education_start_date
+                FROM studying_progress p
+                JOIN request r ON r.request_id = p.request_id
+                WHERE %s
+            )
+            SELECT 'SUMMARY' AS kind, o.course_id AS item_key, COUNT(s.request_id) AS item_count,
+                   AVG(CAST(s.percent AS DOUBLE PRECISION)) AS average,
+                   PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY s.percent) AS median,
+                   COUNT(s.graduation_date) AS graduated,
+                   CAST(NULL AS INTEGER) AS student_id, CAST(NULL AS INTEGER) AS percent,
+                   CAST(NULL AS INTEGER) AS studying_status_id, CAST(NULL AS TIMESTAMP) AS education_start_date,
+                   CAST(NULL AS VARCHAR) AS surname, CAST(NULL AS VARCHAR) AS name, CAST(NULL AS VARCHAR) AS second_name
+            FROM owner o
+            LEFT JOIN scope s ON TRUE
+            GROUP BY o.course_id
+            UNION ALL
+            SELECT 'BUCKET', GREATEST(LEAST(percent / 10, 9), 0), COUNT(*), NULL, NULL, NULL,
+                   NULL, NULL, NULL, NULL, NULL, NULL, NULL
+            FROM scope
+            GROUP BY GREATEST(LEAST(percent / 10, 9), 0)
+            UNION ALL
+            SELECT 'STATUS', studying_status_id, COUNT(*), NULL, NULL, NULL,
+                   NULL, NULL, NULL, NULL, NULL, NULL, NULL
+            FROM scope
+            GROUP BY studying_status_id
+            UNION ALL
+            SELECT 'SLOWEST', x.request_id, x.position, NULL, NULL, NULL,
+                   x.student_id, x.percent, x.studying_status_id, x.education_start_date,
+                   st.surname, st.name, st.second_name
+            FROM (SELECT scope.*,
+                         ROW_NUMBER() OVER (ORDER BY percent, education_start_date, request_id) AS position
+                  FROM scope) x
+            JOIN student st ON st.student_id = x.student_id
+            WHERE x.position <= :slowest""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ReferenceDataRegistry referenceData;
+    private final ConcurrentHashMap<Key, CompletableFuture<ProgressDashboardDto>> entries = new ConcurrentHashMap<>();
+
+    public enum Scope {
+        GROUP("SELECT group_id AS owner_id, course_id FROM student_group WHERE group_id = :id",
+                "r.group_id = :id", "Group not found"),
+        COURSE("SELECT course_id AS owner_id, course_id FROM course WHERE course_id = :id",
+                "r.course_id = :id", "Course not found");
+
+        private final String sql;
+        private final String notFound;
+
+        Scope(String owner, String filter, String notFound) {
+            this.sql = DASHBOARD_SQL.formatted(owner, filter);
+            this.notFound = notFound;
+        }
+    }
+
+    private record Key(Scope scope, Integer id, int slowest) {
+    }
+
+    public ProgressDashboardDto getDashboard(Scope scope, Integer id, int slowest) {
+        Key key = new Key(scope, id, Math.max(0, Math.min(slowest, MAX_SLOWEST)));
+        CompletableFuture<ProgressDashboardDto> future = entries.get(key);
+        if (future == null) {
+            CompletableFuture<ProgressDashboardDto> created = new CompletableFuture<>();
+            future = entries.putIfAbsent(key, created);
+            if (future == null) {
+                future = created;
+                try {
+                    created.complete(load(key));
+                } catch (RuntimeException e) {
+                    // Ошибку (в том числе 404) не кэшируем
+                    entries.remove(key, created);
+                    created.completeExceptionally(e);
+                }
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Сброс сводок курса и его групп после коммита записи прогресса.
+    // Незавершённые загрузки тоже сбрасываются: они могли прочитать данные до записи
+    public void invalidateCourse(Integer courseId) {
+        afterCommit(() -> entries.entrySet().removeIf(entry -> {
+            CompletableFuture<ProgressDashboardDto> future = entry.getValue();
+            return !future.isDone() || future.isCompletedExceptionally()
+                    || Objects.equals(future.join().courseId(), courseId);
+        }));
+    }
+
+    public void invalidateAll() {
+        afterCommit(entries::clear);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private ProgressDashboardDto load(Key key) {
+        Summary summary = new Summary();
+        long[] buckets = new long[BUCKETS];
+        Map<Integer, Long> statuses = new TreeMap<>();
+        List<Ranked> slowest = new ArrayList<>();
+
+        jdbcTemplate.query(key.scope().sql,
+                new MapSqlParameterSource()
+                        .addValue("id", key.id())
+                        .addValue("slowest", key.slowest()),
+                rs -> {
+                    switch (rs.getString("kind")) {
+                        case "SUMMARY" -> {
+                            summary.found = true;
+                            summary.courseId = rs.getInt("item_key");
+                            summary.students = rs.getLong("item_count");
+                            summary.average = nullableDouble(rs, "average");
+                            summary.median = nullableDouble(rs, "median");
+                            summary.graduated = rs.getLong("graduated");
+                        }
+                        case "BUCKET" -> buckets[rs.getInt("item_key")] = rs.getLong("item_count");
+                        case "STATUS" -> statuses.put(rs.getInt("item_key"), rs.getLong("item_count"));
+                        case "SLOWEST" -> slowest.add(new Ranked(rs.getLong("item_count"), learner(rs)));
+                        default -> throw new IllegalStateException("Unexpected row kind " + rs.getString("kind"));
+                    }
+                });
+        if (!summary.found) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, key.scope().notFound);
+        }
+
+        List<Bucket> histogram = new ArrayList<>(BUCKETS);
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.add(new Bucket(i * 10, i == BUCKETS - 1 ? 100 : i * 10 + 9, buckets[i]));
+        }
+
+        // Все статусы справочника, в том числе без студентов
+        Map<String, Long> statusCounts = new LinkedHashMap<>();
+        for (StudyingStatus status : referenceData.studyingStatuses()) {
+            statusCounts.put(status.getName(), statuses.getOrDefault(status.getId(), 0L));
+        }
+        statuses.forEach((statusId, count) -> {
+            if (referenceData.studyingStatus(statusId).isEmpty()) {
+                statusCounts.put(String.valueOf(statusId), count);
+            }
+        });
+
+        return new ProgressDashboardDto(key.scope().name().toLowerCase(), key.id(), summary.courseId,
+                summary.students, summary.average, summary.median, summary.graduated,
+                histogram, statusCounts,
+                slowest.stream()
+                        .sorted(Comparator.comparingLong(Ranked::position))
+                        .map(Ranked::learner)
+                        .toList());
+    }
+
+    private Learner learner(ResultSet rs) throws SQLException {
+        Integer statusId = rs.getInt("studying_status_id");
+        Timestamp startDate = rs.getTimestamp("education_start_date");
+        return new Learner(rs.getInt("item_key"), rs.getInt("student_id"),
+                rs.getString("surname"), rs.getString("name"), rs.getString("second_name"),
+                rs.getInt("percent"),
+                referenceData.studyingStatus(statusId).map(StudyingStatus::getName).orElse(null),
+                startDate != null ? startDate.toLocalDateTime() : null);
+    }
+
+    private static Double nullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static final class Summary {
+        private boolean found;
+        private Integer courseId;
+        private long students;
+        private Double average;
+        private Double median;
+        private long graduated;
+    }
+
+    private record Ranked(long position, Learner learner) {
+    }
+}
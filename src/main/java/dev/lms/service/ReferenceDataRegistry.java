@@ -0,0 +1,253 @@
+package dev.lms.service;
+
+import dev.lms.models.Category;
+import dev.lms.models.CourseStatus;
+import dev.lms.models.DocumentType;
+import dev.lms.models.RequestStatus;
+import dev.lms.models.SolutionStatus;
+import dev.lms.models.StudyingStatus;
+import dev.lms.models.WorkerRole;
+import dev.lms.repository.CourseCategoryRepository;
+import dev.lms.repository.CourseStatusRepository;
+import dev.lms.repository.DocumentTypeRepository;
+import dev.lms.repository.RequestStatusRepository;
+import dev.lms.repository.SolutionStatusRepository;
+import dev.lms.repository.StudyingStatusRepository;
+import dev.lms.repository.WorkerRoleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Справочники (статусы, типы документов, категории, роли) в памяти. Загружаются при старте и
+// перезагружаются целиком после изменения справочника. Снимок неизменяемый, наружу отдаются
+// новые экземпляры сущностей с id и названием, поэтому изменить общий снимок нельзя
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataRegistry {
+    public static final int DEFAULT_REQUEST_STATUS_ID = 1;   // "В рассмотрении"
+    public static final int DEFAULT_SOLUTION_STATUS_ID = 1;  // "Не оценена"
+    public static final int DEFAULT_STUDYING_STATUS_ID = 1;  // "В процессе"
+    public static final String APPROVED_REQUEST_STATUS = "Одобрена";
+
+    private final RequestStatusRepository requestStatusRepository;
+    private final SolutionStatusRepository solutionStatusRepository;
+    private final StudyingStatusRepository studyingStatusRepository;
+    private final CourseStatusRepository courseStatusRepository;
+    private final CourseCategoryRepository courseCategoryRepository;
+    private final WorkerRoleRepository workerRoleRepository;
+    private final DocumentTypeRepository documentTypeRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private record Snapshot(Table<RequestStatus> requestStatuses,
+                            Table<SolutionStatus> solutionStatuses,
+                            Table<StudyingStatus> studyingStatuses,
+                            Table<CourseStatus> courseStatuses,
+                            Table<Category> categories,
+                            Table<WorkerRole> workerRoles,
+                            Table<DocumentType> documentTypes) {
+        private static final Snapshot EMPTY = new Snapshot(Table.empty(), Table.empty(), Table.empty(),
+                Table.empty(), Table.empty(), Table.empty(), Table.empty());
+    }
+
+    // Загружается раньше других обработчиков старта, которые читают справочники
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void reload() {
+        Snapshot loaded = new Snapshot(
+                Table.of(requestStatusRepository.findAll(), RequestStatus::getId, RequestStatus::getName,
+                        RequestStatus::new, RequestStatus::setId, RequestStatus::setName),
+                Table.of(solutionStatusRepository.findAll(), SolutionStatus::getId, SolutionStatus::getName,
+                        SolutionStatus::new, SolutionStatus::setId, SolutionStatus::setName),
+                Table.of(studyingStatusRepository.findAll(), StudyingStatus::getId, StudyingStatus::getName,
+                        StudyingStatus::new, StudyingStatus::setId, StudyingStatus::setName),
+                Table.of(courseStatusRepository.findAll(), CourseStatus::getId, CourseStatus::getName,
+                        CourseStatus::new, CourseStatus::setId, CourseStatus::setName),
+                Table.of(courseCategoryRepository.findAll(), Category::getId, Category::getName,
+                        Category::new, Category::setId, Category::setName),
+                Table.of(workerRoleRepository.findAll(), WorkerRole::getId, WorkerRole::getName,
+                        WorkerRole::new, WorkerRole::setId, WorkerRole::setName),
+                Table.of(documentTypeRepository.findAll(), DocumentType::getId, DocumentType::getName,
+                        DocumentType::new, DocumentType::setId, DocumentType::setName));
+        snapshot = loaded;
+        log.info("Reference data loaded: {} request statuses, {} categories, {} worker roles",
+                loaded.requestStatuses().size(), loaded.categories().size(), loaded.workerRoles().size());
+    }
+
+    // Перезагрузка после коммита, чтобы снимок не увидел изменения откатившейся транзакции
+    public void refresh() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload();
+                }
+            });
+        } else {
+            reload();
+        }
+    }
+
+    public Optional<RequestStatus> requestStatus(Integer id) {
+        return snapshot.requestStatuses().byId(id);
+    }
+
+    public RequestStatus defaultRequestStatus() {
+        return requestStatus(DEFAULT_REQUEST_STATUS_ID)
+                .orElseThrow(() -> new RuntimeException("Default status not found"));
+    }
+
+    public Optional<Integer> requestStatusId(String name) {
+        return snapshot.requestStatuses().idOf(name);
+    }
+
+    public List<RequestStatus> requestStatuses() {
+        return snapshot.requestStatuses().all();
+    }
+
+    public SolutionStatus defaultSolutionStatus() {
+        return snapshot.solutionStatuses().byId(DEFAULT_SOLUTION_STATUS_ID)
+                .orElseThrow(() -> new RuntimeException("Default status not found"));
+    }
+
+    public Optional<SolutionStatus> solutionStatus(Integer id) {
+        return snapshot.solutionStatuses().byId(id);
+    }
+
+    public StudyingStatus defaultStudyingStatus() {
+        return snapshot.studyingStatuses().byId(DEFAULT_STUDYING_STATUS_ID)
+                .orElseThrow(() -> new RuntimeException("Default status not found"));
+    }
+
+    public Optional<StudyingStatus> studyingStatus(Integer id) {
+        return snapshot.studyingStatuses().byId(id);
+    }
+
+    public Optional<StudyingStatus> studyingStatus(String name) {
+        return snapshot.studyingStatuses().byName(name);
+    }
+
+    public List<StudyingStatus> studyingStatuses() {
+        return snapshot.studyingStatuses().all();
+    }
+
+    public Optional<CourseStatus> courseStatus(Integer id) {
+        return snapshot.courseStatuses().byId(id);
+    }
+
+    public Optional<CourseStatus> courseStatus(String name) {
+        return snapshot.courseStatuses().byName(name);
+    }
+
+    public List<CourseStatus> courseStatuses() {
+        return snapshot.courseStatuses().all();
+    }
+
+    public Optional<Category> category(Integer id) {
+        return snapshot.categories().byId(id);
+    }
+
+    public Optional<Category> category(String name) {
+        return snapshot.categories().byName(name);
+    }
+
+    public List<Category> categories() {
+        return snapshot.categories().all();
+    }
+
+    public Optional<WorkerRole> workerRole(String name) {
+        return snapshot.workerRoles().byName(name);
+    }
+
+    public Optional<DocumentType> documentType(Integer id) {
+        return snapshot.documentTypes().byId(id);
+    }
+
+    public List<DocumentType> documentTypes() {
+        return snapshot.documentTypes().all();
+    }
+
+    // Один справочник: id -> название и название -> id, экземпляры создаются при каждом обращении
+    private static final class Table<T> {
+        private final Map<Integer, String> names;
+        private final Map<String, Integer> ids;
+        private final Supplier<T> constructor;
+        private final BiConsumer<T, Integer> idSetter;
+        private final BiConsumer<T, String> nameSetter;
+
+        private Table(Map<Integer, String> names, Map<String, Integer> ids, Supplier<T> constructor,
+                      BiConsumer<T, Integer> idSetter, BiConsumer<T, String> nameSetter) {
+            this.names = names;
+            this.ids = ids;
+            this.constructor = constructor;
+            this.idSetter = idSetter;
+            this.nameSetter = nameSetter;
+        }
+
+        static <T> Table<T> empty() {
+            return new Table<>(Map.of(), Map.of(), null, null, null);
+        }
+
+        static <T> Table<T> of(List<T> rows, Function<T, Integer> id, Function<T, String> name,
+                               Supplier<T> constructor, BiConsumer<T, Integer> idSetter,
+                               BiConsumer<T, String> nameSetter) {
+            Map<Integer, String> names = new LinkedHashMap<>();
+            Map<String, Integer> ids = new HashMap<>();
+            rows.stream()
+                    .sorted(Comparator.comparing(id))
+                    .forEach(row -> {
+                        names.put(id.apply(row), name.apply(row));
+                        ids.putIfAbsent(name.apply(row), id.apply(row));
+                    });
+            return new Table<>(Collections.unmodifiableMap(names), Map.copyOf(ids), constructor, idSetter, nameSetter);
+        }
+
+        int size() {
+            return names.size();
+        }
+
+        Optional<T> byId(Integer id) {
+            String name = id != null ? names.get(id) : null;
+            return name != null ? Optional.of(create(id, name)) : Optional.empty();
+        }
+
+        Optional<T> byName(String name) {
+            return idOf(name).map(id -> create(id, name));
+        }
+
+        Optional<Integer> idOf(String name) {
+            return name != null ? Optional.ofNullable(ids.get(name)) : Optional.empty();
+        }
+
+        List<T> all() {
+            return names.entrySet().stream()
+                    .map(entry -> create(entry.getKey(), entry.getValue()))
+                    .toList();
+        }
+
+        private T create(Integer id, String name) {
+            T entity = constructor.get();
+            idSetter.accept(entity, id);
+            nameSetter.accept(entity, name);
+            return entity;
+        }
+    }
+}
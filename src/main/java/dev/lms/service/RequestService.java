@@ -2,59 +2,204 @@ package dev.lms.service;
 
 
 import dev.lms.dto.*;
+import dev.lms.dto.BulkRequestDecisionResultDto.Outcome;
+import dev.lms.dto.BulkRequestDecisionResultDto.Result;
 import dev.lms.models.Course;
 import dev.lms.models.Request;
 import dev.lms.models.RequestStatus;
 import dev.lms.models.Student;
-import dev.lms.repository.CourseRepository;
-import dev.lms.repository.RequestStatusRepository;
 import dev.lms.repository.RequestRepository;
 import dev.lms.repository.StudentRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class RequestService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BULK_SIZE = 1000;
+
     private final RequestRepository requestRepository;
     private final StudentRepository studentRepository;
-    private final CourseRepository courseRepository;
-    private final RequestStatusRepository requestStatusRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final GroupSeatService groupSeatService;
+    private final ProgressDashboardService dashboardService;
 
+    // Создание заявки: один запрос за студентом и курсом (нужны для ответа) и один INSERT.
+    // Повторная заявка отсекается уникальным ключом (student_id, course_id) через ON CONFLICT DO NOTHING,
+    // поэтому отдельная проверка существования не нужна и параллельные отправки не создают дублей
     @Transactional
     public RequestDto createRequest(CreateRequestDTO dto, Long studentId) {
-        Student student = studentRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("Student not found with id: " + studentId));
-
-        Course course = courseRepository.findById(Long.valueOf(dto.getCourseId()))
-                .orElseThrow(() -> new RuntimeException("Course not found with id: " + dto.getCourseId()));
-
-
-        if (requestRepository.existsByStudentIdAndCourseId(studentId, dto.getCourseId())) {
-            throw new RuntimeException("Request already exists for this course");
+        List<Object[]> found = requestRepository.findStudentAndCourse(studentId.intValue(), dto.getCourseId());
+        if (found.isEmpty()) {
+            if (!studentRepository.existsById(studentId)) {
+                throw new RuntimeException("Student not found with id: " + studentId);
+            }
+            throw new RuntimeException("Course not found with id: " + dto.getCourseId());
         }
 
         // Получаем статус "В рассмотрении" (id = 1)
-        RequestStatus defaultStatus = requestStatusRepository.findById(1)
-                .orElseThrow(() -> new RuntimeException("Default status not found"));
+        RequestStatus defaultStatus = referenceData.defaultRequestStatus();
 
         // Создаем новую заявку
         Request request = new Request();
-        request.setStudent(student);
-        request.setCourse(course);
+        request.setStudent((Student) found.get(0)[0]);
+        request.setCourse((Course) found.get(0)[1]);
         request.setStatus(defaultStatus); // Устанавливаем статус
         request.setCreateTime(LocalDateTime.now()); // Устанавливаем текущую дату создания
 
-        // Сохраняем заявку в базу
-        Request savedRequest = requestRepository.save(request);
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        int inserted = jdbcTemplate.update("""
+                        INSERT INTO request (student_id, course_id, request_status_id, create_time)
+                        VALUES (:studentId, :courseId, :statusId, :createTime)
+                        ON CONFLICT DO NOTHING""",
+                new MapSqlParameterSource()
+                        .addValue("studentId", request.getStudent().getId())
+                        .addValue("courseId", request.getCourse().getId())
+                        .addValue("statusId", defaultStatus.getId())
+                        .addValue("createTime", Timestamp.valueOf(request.getCreateTime())),
+                keyHolder, new String[]{"request_id"});
+        if (inserted == 0) {
+            throw new RuntimeException("Request already exists for this course");
+        }
+        request.setId(keyHolder.getKey().intValue());
 
         // Преобразуем сохраненную заявку в DTO и возвращаем
-        return new RequestDto(savedRequest);
+        return new RequestDto(request);
+    }
+
+    // Массовое одобрение/отклонение: фиксированное число запросов независимо от числа заявок.
+    // Для одобренных заявок прогресс создаётся одним INSERT ... SELECT, повторно не создаётся
+    @Transactional
+    public BulkRequestDecisionResultDto decideRequests(BulkRequestDecisionDto dto, Integer workerId) {
+        if (dto.getRequestIds() == null || dto.getRequestIds().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Request IDs must not be empty");
+        }
+        if (dto.getRequestIds().size() > MAX_BULK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many requests in one call, max " + MAX_BULK_SIZE);
+        }
+        if (dto.getStatusId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Status ID must not be null");
+        }
+        RequestStatus status = referenceData.requestStatus(dto.getStatusId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Status not found"));
+
+        Integer groupCourseId = null;
+        if (dto.getGroupId() != null) {
+            groupCourseId = jdbcTemplate.query("SELECT course_id FROM student_group WHERE group_id = :groupId",
+                            new MapSqlParameterSource("groupId", dto.getGroupId()),
+                            (rs, rowNum) -> rs.getInt("course_id"))
+                    .stream().findFirst()
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Group not found"));
+        }
+
+        // Блокируем заявки, чтобы параллельное решение по тем же заявкам дождалось этого
+        List<Integer> ids = List.copyOf(new LinkedHashSet<>(dto.getRequestIds()));
+        Map<Integer, Integer> requestCourses = new HashMap<>();
+        Map<Integer, Integer> requestGroups = new HashMap<>();
+        jdbcTemplate.query("SELECT request_id, course_id, group_id FROM request WHERE request_id IN (:ids) FOR UPDATE",
+                new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    requestCourses.put(rs.getInt("request_id"), rs.getInt("course_id"));
+                    requestGroups.put(rs.getInt("request_id"), rs.getObject("group_id", Integer.class));
+                });
+
+        List<Integer> updatedIds = new ArrayList<>();
+        List<Integer> movedIds = new ArrayList<>();
+        Map<Integer, Result> results = new HashMap<>();
+        for (Integer id : ids) {
+            Integer courseId = requestCourses.get(id);
+            if (courseId == null) {
+                results.put(id, Result.NOT_FOUND);
+            } else if (groupCourseId != null && !groupCourseId.equals(courseId)) {
+                results.put(id, Result.GROUP_COURSE_MISMATCH);
+            } else if (dto.getGroupId() != null && !dto.getGroupId().equals(requestGroups.get(id))) {
+                movedIds.add(id);
+            } else {
+                results.put(id, Result.UPDATED);
+                updatedIds.add(id);
+            }
+        }
+
+        // Места в группе занимаются одним условным UPDATE, заявки сверх вместимости не меняются
+        if (!movedIds.isEmpty()) {
+            int granted = groupSeatService.takeUpToSeats(dto.getGroupId(), movedIds.size());
+            Map<Integer, Integer> releasedSeats = new HashMap<>();
+            for (int i = 0; i < movedIds.size(); i++) {
+                Integer id = movedIds.get(i);
+                if (i < granted) {
+                    results.put(id, Result.UPDATED);
+                    updatedIds.add(id);
+                    Integer previousGroupId = requestGroups.get(id);
+                    if (previousGroupId != null) {
+                        releasedSeats.merge(previousGroupId, 1, Integer::sum);
+                    }
+                } else {
+                    results.put(id, Result.GROUP_FULL);
+                }
+            }
+            groupSeatService.releaseSeats(releasedSeats);
+        }
+
+        Set<Integer> progressCreated = new HashSet<>();
+        if (!updatedIds.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            // Группа меняется только если указана (при отклонении её обычно нет)
+            String groupAssignment = dto.getGroupId() != null ? "group_id = :groupId, " : "";
+            jdbcTemplate.update("UPDATE request SET request_status_id = :statusId, " + groupAssignment +
+                            "worker_id = :workerId, processing_time = :now WHERE request_id IN (:ids)",
+                    new MapSqlParameterSource()
+                            .addValue("statusId", status.getId())
+                            .addValue("groupId", dto.getGroupId())
+                            .addValue("workerId", workerId)
+                            .addValue("now", now)
+                            .addValue("ids", updatedIds));
+
+            // Прогресс создаётся одним INSERT ... SELECT на все заявки. Какие из них уже имели прогресс,
+            // видно по выборке до вставки: заявки заблокированы выше, уникальный ключ защищает от дублей
+            if (Objects.equals(status.getName(), ReferenceDataRegistry.APPROVED_REQUEST_STATUS)) {
+                MapSqlParameterSource params = new MapSqlParameterSource()
+                        .addValue("ids", updatedIds)
+                        .addValue("now", now)
+                        .addValue("studyingStatusId", ReferenceDataRegistry.DEFAULT_STUDYING_STATUS_ID);
+                Set<Integer> existing = new HashSet<>(jdbcTemplate.queryForList(
+                        "SELECT request_id FROM studying_progress WHERE request_id IN (:ids)", params, Integer.class));
+                jdbcTemplate.update("""
+                                INSERT INTO studying_progress (request_id, education_start_date, completion_percentage, studying_status_id)
+                                SELECT r.request_id, :now, 0, :studyingStatusId
+                                FROM request r
+                                WHERE r.request_id IN (:ids)
+                                ON CONFLICT DO NOTHING""",
+                        params);
+                updatedIds.stream().filter(id -> !existing.contains(id)).forEach(progressCreated::add);
+            }
+            // Заявки могут относиться к разным курсам, сводки сбрасываются целиком
+            dashboardService.invalidateAll();
+        }
+
+        List<Outcome> outcomes = ids.stream()
+                .map(id -> new Outcome(id, results.get(id), progressCreated.contains(id)))
+                .toList();
+        return new BulkRequestDecisionResultDto(updatedIds.size(), progressCreated.size(), outcomes);
     }
 
     // Вспомогательный метод для преобразования Request в RequestDTO
@@ -81,6 +226,18 @@ public class RequestService {
                 .collect(Collectors.toList());
     }
 
+    // Очередь заявок администратора: фильтры на стороне БД и keyset-пагинация по (create_time, request_id)
+    public CursorPageDto<RequestQueueItemDto> getRequestQueue(RequestFilterDto filter, String cursor, int size, boolean ascending) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Cursors.Position after = Cursors.decode(cursor);
+
+        List<RequestQueueItemDto> requests = requestRepository.findQueuePage(filter, ascending,
+                after != null ? after.time() : null,
+                after != null ? after.id() : null,
+                limit + 1);
+        return Cursors.page(requests, limit, request -> Cursors.encode(request.getCreateTime(), request.getId()));
+    }
+
     public List<RequestDTOBuilder> getRequestsByStudent(Integer studentId) {
         return requestRepository.findAllRequestsByStudentId(studentId).stream()
                 .map(this::convertToDTO)
@@ -88,9 +245,11 @@ public class RequestService {
     }
 
     public List<CourseShortDto> getCoursesByStudent(Integer studentId) {
-        return requestRepository.findAllCoursesByStudentId(studentId).stream()
-                .map(CourseShortDto::new)
-                .collect(Collectors.toList());
+        return referenceData.requestStatusId(ReferenceDataRegistry.APPROVED_REQUEST_STATUS)
+                .map(statusId -> requestRepository.findAllCoursesByStudentId(studentId, statusId).stream()
+                        .map(CourseShortDto::new)
+                        .collect(Collectors.toList()))
+                .orElse(List.of());
     }
 
     public List<StudentRegistrationDto> getAllStudentsByGroup(Integer groupId) {
@@ -99,10 +258,15 @@ public class RequestService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional
     public void deleteRequest(Integer requestId) {
         Request request = requestRepository.findById(requestId)
                 .orElseThrow(() -> new RuntimeException("Request not found with id: " + requestId));
 
         requestRepository.deleteById(requestId);
+        dashboardService.invalidateCourse(request.getCourse().getId());
+        if (request.getGroup() != null) {
+            groupSeatService.releaseSeats(request.getGroup().getId(), 1);
+        }
     }
 }
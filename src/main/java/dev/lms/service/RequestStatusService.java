@@ -1,20 +1,19 @@
 package dev.lms.service;
 
 import dev.lms.models.RequestStatus;
-import dev.lms.repository.RequestStatusRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 @Service
 public class RequestStatusService {
-    private final RequestStatusRepository requestStatusRepository;
+    private final ReferenceDataRegistry referenceData;
 
-    public RequestStatusService(RequestStatusRepository requestStatusRepository) {
-        this.requestStatusRepository = requestStatusRepository;
+    public RequestStatusService(ReferenceDataRegistry referenceData) {
+        this.referenceData = referenceData;
     }
 
     public List<RequestStatus> getAll() {
-        return requestStatusRepository.findAll();
+        return referenceData.requestStatuses();
     }
 }
@@ -1,28 +1,48 @@
 package dev.lms.service;
 
+import dev.lms.dto.BulkGradeDto;
+import dev.lms.dto.BulkGradeResultDto;
+import dev.lms.dto.BulkGradeResultDto.Outcome;
+import dev.lms.dto.BulkGradeResultDto.Result;
 import dev.lms.dto.RequestDTOBuilder;
 import dev.lms.dto.RequestDto;
 import dev.lms.dto.SolutionsDto;
 import dev.lms.models.*;
 import dev.lms.repository.AssignmentRepository;
 import dev.lms.repository.SolutionRepository;
-import dev.lms.repository.SolutionStatusRepository;
 import dev.lms.repository.StudentRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class SolutionService {
+    private static final int MAX_BULK_SIZE = 1000;
+
     private final SolutionRepository solutionRepository;
     private final StudentRepository studentRepository;
     private final AssignmentRepository assignmentRepository;
-    private final SolutionStatusRepository solutionStatusRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StudyingCompletionService completionService;
+    private final AssignmentStatsService statsService;
+    private final AssignmentDeadlineService deadlineService;
 
     public List<SolutionsDto> getSolutionsByAssignmentId(Integer AssignmentId) {
         return solutionRepository.findAllByAssignmentId(AssignmentId).stream()
@@ -36,29 +56,139 @@ public class SolutionService {
                 .collect(Collectors.toList());
     }
 
+    // Студент нужен для ответа и читается один раз, задание подставляется ссылкой без запроса:
+    // INSERT ... SELECT вставляет строку только если задание существует
     @Transactional
     public SolutionsDto addSolution(SolutionsDto dto, Long studentId) {
         Student student = studentRepository.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("Student not found with id: " + studentId));
 
-        Assignment assignment = assignmentRepository.findById(dto.getAssignmentId())
-                .orElseThrow(() -> new RuntimeException("Course not found with id: " + dto.getAssignmentId()));
-
         // Получаем статус "Не оценена" (id = 1)
-        SolutionStatus defaultStatus = solutionStatusRepository.findById(1)
-                .orElseThrow(() -> new RuntimeException("Default status not found"));
+        SolutionStatus defaultStatus = referenceData.defaultSolutionStatus();
 
         // Создаем новое решение
         Solution solution = new Solution();
         solution.setSolutionComment(dto.getSolutionComment());
         solution.setStudent(student);
-        solution.setAssignment(assignment);
+        solution.setAssignment(assignmentRepository.getReferenceById(dto.getAssignmentId()));
         solution.setStatus(defaultStatus);
         solution.setSendingDate(LocalDateTime.now());
+
         // Сохраняем решение в базу
-        Solution newSolution = solutionRepository.save(solution);
-        return new SolutionsDto(newSolution);
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        // Решение после срока задания сразу помечается опоздавшим
+        int inserted = jdbcTemplate.update("""
+                        INSERT INTO solution (sending_date, solution_comment, student_id, assignment_id, solution_status_id, is_late)
+                        SELECT :sendingDate, :comment, :studentId, a.assignment_id, :statusId,
+                               CASE WHEN a.deadline < :sendingDate THEN TRUE ELSE FALSE END
+                        FROM assignment a
+                        WHERE a.assignment_id = :assignmentId""",
+                new MapSqlParameterSource()
+                        .addValue("sendingDate", Timestamp.valueOf(solution.getSendingDate()))
+                        .addValue("comment", solution.getSolutionComment())
+                        .addValue("studentId", student.getId())
+                        .addValue("statusId", defaultStatus.getId())
+                        .addValue("assignmentId", dto.getAssignmentId()),
+                keyHolder, new String[]{"solution_id", "is_late"});
+        if (inserted == 0) {
+            throw new RuntimeException("Assignment not found with id: " + dto.getAssignmentId());
+        }
+        Map<String, Object> keys = keyHolder.getKeys();
+        solution.setId(((Number) keys.get("solution_id")).intValue());
+        solution.setLate(Boolean.TRUE.equals(keys.get("is_late")));
+        if (solution.getLate()) {
+            deadlineService.lateSolutionAdded(dto.getAssignmentId(), student.getId());
+        }
+        statsService.solutionAdded(dto.getAssignmentId(), student.getId(), solution.getId(), solution.getSendingDate());
+        return new SolutionsDto(solution);
     }
 
+    // Массовая оценка: блокировка решений одним SELECT ... FOR UPDATE и пакетный UPDATE без загрузки
+    // сущностей, преподаватель подставляется по id. Решения, которые сейчас проверяет другой
+    // преподаватель (аренда в очереди проверки), не меняются
+    @Transactional
+    public BulkGradeResultDto gradeSolutions(BulkGradeDto dto, Integer workerId) {
+        if (dto.getGrades() == null || dto.getGrades().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Grades must not be empty");
+        }
+        if (dto.getGrades().size() > MAX_BULK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many solutions in one call, max " + MAX_BULK_SIZE);
+        }
+        // Для повторяющегося решения действует последняя оценка
+        Map<Integer, BulkGradeDto.Item> grades = new LinkedHashMap<>();
+        for (BulkGradeDto.Item item : dto.getGrades()) {
+            if (item.getSolutionId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Solution ID must not be null");
+            }
+            grades.remove(item.getSolutionId());
+            grades.put(item.getSolutionId(), item);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, Boolean> leasedByOther = new HashMap<>();
+        // Задание и прежняя оценка для счётчиков статистики
+        Map<Integer, Integer> assignmentIds = new HashMap<>();
+        Map<Integer, Integer> previousScores = new HashMap<>();
+        jdbcTemplate.query("SELECT solution_id, assignment_id, solution_score, lease_worker_id, lease_expires_at " +
+                        "FROM solution WHERE solution_id IN (:ids) FOR UPDATE",
+                new MapSqlParameterSource("ids", List.copyOf(grades.keySet())),
+                rs -> {
+                    assignmentIds.put(rs.getInt("solution_id"), rs.getInt("assignment_id"));
+                    previousScores.put(rs.getInt("solution_id"), rs.getObject("solution_score", Integer.class));
+                    Integer leaseWorkerId = rs.getObject("lease_worker_id", Integer.class);
+                    Timestamp leaseExpiresAt = rs.getTimestamp("lease_expires_at");
+                    leasedByOther.put(rs.getInt("solution_id"), leaseWorkerId != null && !leaseWorkerId.equals(workerId)
+                            && leaseExpiresAt != null && leaseExpiresAt.toLocalDateTime().isAfter(now));
+                });
 
+        Map<Integer, Result> results = new HashMap<>();
+        List<MapSqlParameterSource> updates = new ArrayList<>();
+        List<AssignmentStatsService.Grade> changes = new ArrayList<>();
+        for (BulkGradeDto.Item item : grades.values()) {
+            Integer solutionId = item.getSolutionId();
+            Boolean leased = leasedByOther.get(solutionId);
+            if (leased == null) {
+                results.put(solutionId, Result.NOT_FOUND);
+            } else if (leased) {
+                results.put(solutionId, Result.LEASED_BY_ANOTHER_TEACHER);
+            } else if (item.getSolutionScore() == null) {
+                // Без оценки решение не меняется: иначе прежняя оценка была бы снята
+                results.put(solutionId, Result.INVALID_SCORE);
+            } else if (item.getStatusId() != null && referenceData.solutionStatus(item.getStatusId()).isEmpty()) {
+                results.put(solutionId, Result.STATUS_NOT_FOUND);
+            } else {
+                results.put(solutionId, Result.GRADED);
+                changes.add(new AssignmentStatsService.Grade(assignmentIds.get(solutionId),
+                        previousScores.get(solutionId), item.getSolutionScore()));
+                updates.add(new MapSqlParameterSource()
+                        .addValue("solutionId", solutionId)
+                        .addValue("score", item.getSolutionScore(), Types.INTEGER)
+                        .addValue("statusId", item.getStatusId(), Types.INTEGER)
+                        .addValue("workerId", workerId));
+            }
+        }
+
+        List<Integer> gradedIds = updates.stream()
+                .map(update -> (Integer) update.getValue("solutionId"))
+                .toList();
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("""
+                            UPDATE solution
+                            SET solution_score = :score,
+                                solution_status_id = COALESCE(:statusId, solution_status_id),
+                                worker_id = :workerId,
+                                lease_worker_id = NULL,
+                                lease_expires_at = NULL
+                            WHERE solution_id = :solutionId""",
+                    updates.toArray(MapSqlParameterSource[]::new));
+            statsService.solutionsGraded(changes);
+            completionService.completeGradedSolutions(gradedIds);
+        }
+
+        List<Outcome> outcomes = grades.keySet().stream()
+                .map(id -> new Outcome(id, results.get(id)))
+                .toList();
+        return new BulkGradeResultDto(gradedIds.size(), outcomes);
+    }
 }
+
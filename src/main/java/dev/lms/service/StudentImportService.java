@@ -0,0 +1,365 @@
+package dev.lms.service;
+
+import dev.lms.dto.StudentImportReportDto;
+import dev.lms.dto.StudentImportReportDto.RowError;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Потоковый импорт студентов из CSV: файл читается построчно и обрабатывается пачками,
+// запись в БД идёт JDBC-батчами, ошибки строк попадают в отчёт и не прерывают импорт
+@Service
+@RequiredArgsConstructor
+public class StudentImportService {
+    private static final int CHUNK_SIZE = 1000;
+    // Длины колонок student (surname, name, second_name, email)
+    private static final int MAX_NAME_LENGTH = 50;
+    private static final int MAX_EMAIL_LENGTH = 50;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordHashingService passwordHashingService;
+    private final GroupSeatService groupSeatService;
+
+    public StudentImportReportDto importStudents(InputStream csv) throws IOException {
+        StudentImportReportDto report = new StudentImportReportDto();
+        ImportContext context = new ImportContext();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        if (header.startsWith("﻿")) {
+            header = header.substring(1);
+        }
+        char delimiter = header.indexOf(';') >= 0 ? ';' : ',';
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> headerCells = parseLine(header, delimiter);
+        for (int i = 0; i < headerCells.size(); i++) {
+            columns.put(headerCells.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("lastname", "firstname", "email", "password")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Missing column: " + required);
+            }
+        }
+
+        List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+        String line;
+        long lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.setTotalRows(report.getTotalRows() + 1);
+            ImportRow row = parseRow(lineNumber, parseLine(line, delimiter), columns, context, report);
+            if (row != null) {
+                chunk.add(row);
+            }
+            if (chunk.size() >= CHUNK_SIZE) {
+                importChunk(chunk, context, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, context, report);
+        }
+        return report;
+    }
+
+    private ImportRow parseRow(long line, List<String> cells, Map<String, Integer> columns,
+                               ImportContext context, StudentImportReportDto report) {
+        String email = cell(cells, columns, "email");
+        String lastName = cell(cells, columns, "lastname");
+        String firstName = cell(cells, columns, "firstname");
+        String middleName = cell(cells, columns, "middlename");
+        String password = cell(cells, columns, "password");
+
+        if (email == null || lastName == null || firstName == null || password == null) {
+            report.getErrors().add(new RowError(line, email, "Required field is empty"));
+            return null;
+        }
+        if (email.length() > MAX_EMAIL_LENGTH || lastName.length() > MAX_NAME_LENGTH
+                || firstName.length() > MAX_NAME_LENGTH || (middleName != null && middleName.length() > MAX_NAME_LENGTH)) {
+            report.getErrors().add(new RowError(line, email, "Field is too long"));
+            return null;
+        }
+        if (!context.seenEmails.add(emailKey(email))) {
+            report.getErrors().add(new RowError(line, email, "Duplicate email in file"));
+            return null;
+        }
+
+        Integer courseId;
+        Integer groupId;
+        try {
+            courseId = parseId(cell(cells, columns, "courseid"));
+            groupId = parseId(cell(cells, columns, "groupid"));
+        } catch (NumberFormatException e) {
+            report.getErrors().add(new RowError(line, email, "Invalid course or group id"));
+            return null;
+        }
+        return new ImportRow(line, lastName, firstName, middleName != null ? middleName : "",
+                email, password, courseId, groupId);
+    }
+
+    private void importChunk(List<ImportRow> chunk, ImportContext context, StudentImportReportDto report) {
+        List<ImportRow> rows = resolveEnrolments(chunk, context, report);
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        // Проверка email по БД одним запросом на пачку
+        Map<String, Integer> studentIds = findStudentIds(rows.stream().map(ImportRow::email).toList());
+        List<ImportRow> newRows = rows.stream()
+                .filter(row -> !studentIds.containsKey(emailKey(row.email())))
+                .toList();
+        // Хэширование вне транзакции, чтобы не держать соединение с БД
+        List<String> passwords = passwordHashingService.encodeAll(newRows.stream().map(ImportRow::password).toList());
+
+        try {
+            write(rows, newRows, passwords, studentIds, report);
+        } catch (DataAccessException e) {
+            // Пачка откатилась целиком: повтор по одной строке, чтобы в отчёт попала только сбойная
+            Map<ImportRow, String> newPasswords = new HashMap<>();
+            for (int i = 0; i < newRows.size(); i++) {
+                newPasswords.put(newRows.get(i), passwords.get(i));
+            }
+            for (ImportRow row : rows) {
+                String password = newPasswords.get(row);
+                try {
+                    write(List.of(row), password != null ? List.of(row) : List.of(),
+                            password != null ? List.of(password) : List.of(), studentIds, report);
+                } catch (DataAccessException rowException) {
+                    report.getErrors().add(new RowError(row.line(), row.email(),
+                            "Row was not imported: " + rowException.getMostSpecificCause().getMessage()));
+                }
+            }
+        }
+    }
+
+    // Запись в одной транзакции; ошибки строк и новые id попадают в отчёт только после коммита
+    private void write(List<ImportRow> rows, List<ImportRow> newRows, List<String> passwords,
+                       Map<String, Integer> studentIds, StudentImportReportDto report) {
+        Map<String, Integer> ids = new HashMap<>(studentIds);
+        List<RowError> errors = new ArrayList<>();
+        int requestsCreated = transactionTemplate.execute(status -> writeChunk(rows, newRows, passwords, ids, errors));
+        studentIds.putAll(ids);
+        report.getErrors().addAll(errors);
+        report.setStudentsCreated(report.getStudentsCreated() + newRows.size());
+        report.setExistingStudents(report.getExistingStudents() + rows.size() - newRows.size());
+        report.setRequestsCreated(report.getRequestsCreated() + requestsCreated);
+    }
+
+    private int writeChunk(List<ImportRow> rows, List<ImportRow> newRows, List<String> passwords,
+                           Map<String, Integer> studentIds, List<RowError> errors) {
+        SqlParameterSource[] students = new SqlParameterSource[newRows.size()];
+        for (int i = 0; i < newRows.size(); i++) {
+            ImportRow row = newRows.get(i);
+            students[i] = new MapSqlParameterSource()
+                    .addValue("lastName", row.lastName())
+                    .addValue("firstName", row.firstName())
+                    .addValue("middleName", row.middleName())
+                    .addValue("email", row.email())
+                    .addValue("password", passwords.get(i));
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO student (surname, name, second_name, email, password) " +
+                "VALUES (:lastName, :firstName, :middleName, :email, :password)",
+                students);
+        if (!newRows.isEmpty()) {
+            studentIds.putAll(findStudentIds(newRows.stream().map(ImportRow::email).toList()));
+        }
+
+        List<ImportRow> enrolments = rows.stream().filter(row -> row.courseId() != null).toList();
+        if (enrolments.isEmpty()) {
+            return 0;
+        }
+        Set<String> existingRequests = new HashSet<>();
+        jdbcTemplate.query(
+                "SELECT student_id, course_id FROM request WHERE student_id IN (:studentIds) AND course_id IN (:courseIds)",
+                new MapSqlParameterSource()
+                        .addValue("studentIds", enrolments.stream().map(row -> studentIds.get(emailKey(row.email()))).toList())
+                        .addValue("courseIds", enrolments.stream().map(ImportRow::courseId).distinct().toList()),
+                rs -> {
+                    existingRequests.add(rs.getInt("student_id") + ":" + rs.getInt("course_id"));
+                });
+
+        List<ImportRow> accepted = new ArrayList<>(enrolments.size());
+        Map<Integer, Integer> seatsWanted = new HashMap<>();
+        for (ImportRow row : enrolments) {
+            if (!existingRequests.add(studentIds.get(emailKey(row.email())) + ":" + row.courseId())) {
+                errors.add(new RowError(row.line(), row.email(), "Request already exists for this course"));
+                continue;
+            }
+            accepted.add(row);
+            if (row.groupId() != null) {
+                seatsWanted.merge(row.groupId(), 1, Integer::sum);
+            }
+        }
+        // Места в группах занимаются одним UPDATE на группу, строки сверх вместимости не импортируются
+        Map<Integer, Integer> seatsLeft = new HashMap<>();
+        seatsWanted.forEach((groupId, seats) -> seatsLeft.put(groupId, groupSeatService.takeUpToSeats(groupId, seats)));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<SqlParameterSource> requests = new ArrayList<>();
+        for (ImportRow row : accepted) {
+            if (row.groupId() != null && seatsLeft.merge(row.groupId(), -1, Integer::sum) < 0) {
+                errors.add(new RowError(row.line(), row.email(), "Group is full"));
+                continue;
+            }
+            Integer studentId = studentIds.get(emailKey(row.email()));
+            requests.add(new MapSqlParameterSource()
+                    .addValue("studentId", studentId)
+                    .addValue("courseId", row.courseId())
+                    .addValue("groupId", row.groupId())
+                    .addValue("statusId", ReferenceDataRegistry.DEFAULT_REQUEST_STATUS_ID)
+                    .addValue("createTime", now));
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO request (student_id, course_id, group_id, request_status_id, create_time) " +
+                "VALUES (:studentId, :courseId, :groupId, :statusId, :createTime)",
+                requests.toArray(SqlParameterSource[]::new));
+        return requests.size();
+    }
+
+    // Проверка курсов и групп пачки; найденные id запоминаются на весь файл
+    private List<ImportRow> resolveEnrolments(List<ImportRow> chunk, ImportContext context,
+                                              StudentImportReportDto report) {
+        List<Integer> unknownGroups = chunk.stream()
+                .map(ImportRow::groupId)
+                .filter(id -> id != null && !context.groupCourses.containsKey(id))
+                .distinct()
+                .toList();
+        if (!unknownGroups.isEmpty()) {
+            jdbcTemplate.query("SELECT group_id, course_id FROM student_group WHERE group_id IN (:ids)",
+                    new MapSqlParameterSource("ids", unknownGroups),
+                    rs -> {
+                        context.groupCourses.put(rs.getInt("group_id"), rs.getInt("course_id"));
+                    });
+        }
+
+        List<Integer> unknownCourses = chunk.stream()
+                .map(ImportRow::courseId)
+                .filter(id -> id != null && !context.courseIds.contains(id))
+                .distinct()
+                .toList();
+        if (!unknownCourses.isEmpty()) {
+            context.courseIds.addAll(jdbcTemplate.queryForList("SELECT course_id FROM course WHERE course_id IN (:ids)",
+                    new MapSqlParameterSource("ids", unknownCourses), Integer.class));
+        }
+
+        List<ImportRow> rows = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            Integer courseId = row.courseId();
+            if (row.groupId() != null) {
+                Integer groupCourseId = context.groupCourses.get(row.groupId());
+                if (groupCourseId == null) {
+                    report.getErrors().add(new RowError(row.line(), row.email(), "Group not found"));
+                    continue;
+                }
+                if (courseId != null && !courseId.equals(groupCourseId)) {
+                    report.getErrors().add(new RowError(row.line(), row.email(), "Group belongs to another course"));
+                    continue;
+                }
+                courseId = groupCourseId;
+            } else if (courseId != null && !context.courseIds.contains(courseId)) {
+                report.getErrors().add(new RowError(row.line(), row.email(), "Course not found"));
+                continue;
+            }
+            rows.add(Objects.equals(courseId, row.courseId()) ? row : row.withCourseId(courseId));
+        }
+        return rows;
+    }
+
+    // Ключ - email в нижнем регистре: так же сравниваются строки внутри файла
+    private Map<String, Integer> findStudentIds(List<String> emails) {
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT student_id, email FROM student WHERE LOWER(email) IN (:emails)",
+                new MapSqlParameterSource("emails", emails.stream().map(StudentImportService::emailKey).toList()),
+                rs -> {
+                    ids.put(emailKey(rs.getString("email")), rs.getInt("student_id"));
+                });
+        return ids;
+    }
+
+    private static String emailKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private static String cell(List<String> cells, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= cells.size()) {
+            return null;
+        }
+        String value = cells.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Integer parseId(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    // Разбор строки CSV с поддержкой кавычек ("" внутри кавычек - экранированная кавычка)
+    static List<String> parseLine(String line, char delimiter) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                cells.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        cells.add(current.toString());
+        return cells;
+    }
+
+    private record ImportRow(long line, String lastName, String firstName, String middleName,
+                             String email, String password, Integer courseId, Integer groupId) {
+        ImportRow withCourseId(Integer courseId) {
+            return new ImportRow(line, lastName, firstName, middleName, email, password, courseId, groupId);
+        }
+    }
+
+    private static class ImportContext {
+        private final Set<String> seenEmails = new HashSet<>();
+        private final Set<Integer> courseIds = new HashSet<>();
+        private final Map<Integer, Integer> groupCourses = new HashMap<>();
+    }
+}
@@ -0,0 +1,255 @@
+package dev.lms.service;
+
+import dev.lms.dto.ProgressRebuildReportDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+// Прогресс обучения по пройденным элементам курса (материалы и задания с оценкой).
+// У заявки хранится число пройденных элементов, у курса - общее число элементов,
+// поэтому процент пересчитывается одним UPDATE без обхода материалов и заданий
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StudyingCompletionService {
+    // Процент из счётчиков; если у курса нет элементов, прежнее значение не трогаем
+    private static final String PERCENT_FROM_COUNTERS = """
+            completion_percentage = COALESCE((
+                SELECT LEAST(100, %s * 100 / c.progress_item_count)
+                FROM request r
+                JOIN course c ON c.course_id = r.course_id
+                WHERE r.request_id = p.request_id AND c.progress_item_count > 0), p.completion_percentage)""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ProgressDashboardService dashboardService;
+
+    public record Enrolment(Integer requestId, Integer courseId) {
+    }
+
+    // Студент прошёл материал. Возвращает заявку, по которой засчитан материал
+    @Transactional
+    public Enrolment completeMaterial(Integer studentId, Integer materialId) {
+        Enrolment enrolment = jdbcTemplate.query("""
+                        SELECT r.request_id, r.course_id
+                        FROM educational_material m
+                        JOIN request r ON r.course_id = m.course_id AND r.student_id = :studentId
+                        JOIN studying_progress p ON p.request_id = r.request_id
+                        WHERE m.material_id = :materialId""",
+                        new MapSqlParameterSource()
+                                .addValue("studentId", studentId)
+                                .addValue("materialId", materialId),
+                        (rs, rowNum) -> new Enrolment(rs.getInt("request_id"), rs.getInt("course_id")))
+                .stream().findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Material not found in courses of the student"));
+
+        complete(enrolment, "material_id", materialId);
+        return enrolment;
+    }
+
+    // Решение получило оценку: задание считается пройденным, если студент учится на курсе
+    @Transactional
+    public void completeAssignment(Integer studentId, Integer assignmentId) {
+        jdbcTemplate.query("""
+                                SELECT r.request_id, r.course_id
+                                FROM assignment a
+                                JOIN request r ON r.course_id = a.course_id AND r.student_id = :studentId
+                                JOIN studying_progress p ON p.request_id = r.request_id
+                                WHERE a.assignment_id = :assignmentId""",
+                        new MapSqlParameterSource()
+                                .addValue("studentId", studentId)
+                                .addValue("assignmentId", assignmentId),
+                        (rs, rowNum) -> new Enrolment(rs.getInt("request_id"), rs.getInt("course_id")))
+                .stream().findFirst()
+                .ifPresent(enrolment -> complete(enrolment, "assignment_id", assignmentId));
+    }
+
+    // Повторное прохождение того же элемента отсекается уникальным ключом и счётчик не меняет
+    private void complete(Enrolment enrolment, String itemColumn, Integer itemId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("requestId", enrolment.requestId())
+                .addValue("itemId", itemId)
+                .addValue("now", now);
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO studying_completion (request_id, " + itemColumn + ", completed_at) " +
+                "VALUES (:requestId, :itemId, :now) ON CONFLICT DO NOTHING",
+                params);
+        if (inserted == 0) {
+            return;
+        }
+        jdbcTemplate.update("UPDATE studying_progress p SET completed_item_count = p.completed_item_count + 1, " +
+                        PERCENT_FROM_COUNTERS.formatted("(p.completed_item_count + 1)") +
+                        " WHERE p.request_id = :requestId",
+                params);
+        jdbcTemplate.update("""
+                        UPDATE studying_progress SET graduation_date = :now
+                        WHERE request_id = :requestId AND completion_percentage >= 100 AND graduation_date IS NULL""",
+                params);
+        dashboardService.invalidateCourse(enrolment.courseId());
+    }
+
+    // Массовая оценка: задания с оценённым решением засчитываются набором запросов, затем счётчики
+    // затронутых заявок пересчитываются по таблице пройденных элементов
+    @Transactional
+    public void completeGradedSolutions(Collection<Integer> solutionIds) {
+        if (solutionIds.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", solutionIds)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+        int inserted = jdbcTemplate.update("""
+                        INSERT INTO studying_completion (request_id, assignment_id, completed_at)
+                        SELECT DISTINCT r.request_id, s.assignment_id, CAST(:now AS TIMESTAMP)
+                        FROM solution s
+                        JOIN assignment a ON a.assignment_id = s.assignment_id
+                        JOIN request r ON r.student_id = s.student_id AND r.course_id = a.course_id
+                        JOIN studying_progress p ON p.request_id = r.request_id
+                        WHERE s.solution_id IN (:ids) AND s.solution_score IS NOT NULL
+                        ON CONFLICT DO NOTHING""",
+                params);
+        if (inserted == 0) {
+            return;
+        }
+        String affected = """
+                SELECT r.request_id
+                FROM solution s
+                JOIN assignment a ON a.assignment_id = s.assignment_id
+                JOIN request r ON r.student_id = s.student_id AND r.course_id = a.course_id
+                WHERE s.solution_id IN (:ids)""";
+        jdbcTemplate.update("""
+                        UPDATE studying_progress p SET completed_item_count =
+                            (SELECT COUNT(*) FROM studying_completion sc WHERE sc.request_id = p.request_id)
+                        WHERE p.request_id IN (%s)""".formatted(affected),
+                params);
+        jdbcTemplate.update("UPDATE studying_progress p SET " + PERCENT_FROM_COUNTERS.formatted("p.completed_item_count") +
+                        " WHERE p.request_id IN (" + affected + ")",
+                params);
+        jdbcTemplate.update("""
+                        UPDATE studying_progress SET graduation_date = :now
+                        WHERE request_id IN (%s) AND completion_percentage >= 100 AND graduation_date IS NULL"""
+                        .formatted(affected),
+                params);
+        jdbcTemplate.queryForList("""
+                                SELECT DISTINCT a.course_id
+                                FROM solution s
+                                JOIN assignment a ON a.assignment_id = s.assignment_id
+                                WHERE s.solution_id IN (:ids)""",
+                        params, Integer.class)
+                .forEach(dashboardService::invalidateCourse);
+    }
+
+    // В курс добавлен материал или задание: процент всех студентов курса уменьшается
+    @Transactional
+    public void itemAdded(Integer courseId) {
+        changeItemCount(courseId, 1);
+    }
+
+    @Transactional
+    public void materialRemoved(Integer materialId) {
+        itemRemoved("educational_material", "material_id", materialId);
+    }
+
+    @Transactional
+    public void assignmentRemoved(Integer assignmentId) {
+        itemRemoved("assignment", "assignment_id", assignmentId);
+    }
+
+    // Удаление элемента: снимаем его с прошедших студентов, затем уменьшаем число элементов курса
+    private void itemRemoved(String table, String itemColumn, Integer itemId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("itemId", itemId);
+        Integer courseId = jdbcTemplate.query(
+                        "SELECT course_id FROM " + table + " WHERE " + itemColumn + " = :itemId",
+                        params, (rs, rowNum) -> rs.getInt("course_id"))
+                .stream().findFirst().orElse(null);
+        if (courseId == null) {
+            return;
+        }
+        jdbcTemplate.update("""
+                        UPDATE studying_progress SET completed_item_count = completed_item_count - 1
+                        WHERE request_id IN (SELECT request_id FROM studying_completion WHERE %s = :itemId)"""
+                        .formatted(itemColumn),
+                params);
+        jdbcTemplate.update("DELETE FROM studying_completion WHERE " + itemColumn + " = :itemId", params);
+        changeItemCount(courseId, -1);
+    }
+
+    private void changeItemCount(Integer courseId, int delta) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("courseId", courseId)
+                .addValue("delta", delta);
+        jdbcTemplate.update("UPDATE course SET progress_item_count = GREATEST(progress_item_count + :delta, 0) " +
+                        "WHERE course_id = :courseId",
+                params);
+        jdbcTemplate.update("UPDATE studying_progress p SET " + PERCENT_FROM_COUNTERS.formatted("p.completed_item_count") +
+                        " WHERE p.request_id IN (SELECT request_id FROM request WHERE course_id = :courseId)",
+                params);
+        dashboardService.invalidateCourse(courseId);
+    }
+
+    // Полный пересчёт по существующим данным, набором запросов без построчной обработки:
+    // 1. число элементов каждого курса;
+    // 2. задания с оценённым решением засчитываются;
+    // 3. у заявок, прогресс которых задавал клиент (счётчик пуст, процент > 0), засчитываются первые
+    //    по порядку материалы в доле, соответствующей проценту - так материалы проходит CourseStepper;
+    // 4. счётчики и проценты заявок пересчитываются.
+    @Transactional
+    public ProgressRebuildReportDto rebuild() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        MapSqlParameterSource params = new MapSqlParameterSource("now", now);
+
+        int courses = jdbcTemplate.update("""
+                        UPDATE course c SET progress_item_count =
+                            (SELECT COUNT(*) FROM educational_material m WHERE m.course_id = c.course_id)
+                          + (SELECT COUNT(*) FROM assignment a WHERE a.course_id = c.course_id)""",
+                params);
+
+        int assignments = jdbcTemplate.update("""
+                        INSERT INTO studying_completion (request_id, assignment_id, completed_at)
+                        SELECT r.request_id, s.assignment_id, MIN(s.sending_date)
+                        FROM solution s
+                        JOIN assignment a ON a.assignment_id = s.assignment_id
+                        JOIN request r ON r.student_id = s.student_id AND r.course_id = a.course_id
+                        JOIN studying_progress p ON p.request_id = r.request_id
+                        WHERE s.solution_score IS NOT NULL
+                        GROUP BY r.request_id, s.assignment_id
+                        ON CONFLICT DO NOTHING""",
+                params);
+
+        int materials = jdbcTemplate.update("""
+                        INSERT INTO studying_completion (request_id, material_id, completed_at)
+                        SELECT p.request_id, m.material_id, COALESCE(p.graduation_date, :now)
+                        FROM studying_progress p
+                        JOIN request r ON r.request_id = p.request_id
+                        JOIN (SELECT material_id, course_id,
+                                     ROW_NUMBER() OVER (PARTITION BY course_id ORDER BY material_id) AS position,
+                                     COUNT(*) OVER (PARTITION BY course_id) AS total
+                              FROM educational_material) m ON m.course_id = r.course_id
+                        WHERE p.completed_item_count = 0
+                          AND (m.position - 1) * 100 < COALESCE(p.completion_percentage, 0) * m.total
+                        ON CONFLICT DO NOTHING""",
+                params);
+
+        int progressRows = jdbcTemplate.update("""
+                        UPDATE studying_progress p SET completed_item_count =
+                            (SELECT COUNT(*) FROM studying_completion sc WHERE sc.request_id = p.request_id)""",
+                params);
+        jdbcTemplate.update("UPDATE studying_progress p SET " + PERCENT_FROM_COUNTERS.formatted("p.completed_item_count"),
+                params);
+
+        dashboardService.invalidateAll();
+        log.info("Progress rebuilt: {} courses, {} assignment and {} material completions added, {} progress rows",
+                courses, assignments, materials, progressRows);
+        return new ProgressRebuildReportDto(courses, assignments, materials, progressRows);
+    }
+}
@@ -8,69 +8,120 @@ import dev.lms.models.Request;
 import dev.lms.models.RequestStatus;
 import dev.lms.models.StudyingProgress;
 import dev.lms.models.StudyingStatus;
-import dev.lms.repository.RequestRepository;
+import dev.lms.repository.CourseRepository;
 import dev.lms.repository.StudyingProgressRepository;
-import dev.lms.repository.StudyingStatusRepository;
-import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class StudyingProgressService {
     private final StudyingProgressRepository progressRepository;
-    private final RequestRepository requestRepository;
-    private final StudyingStatusRepository studyingStatusRepository;
-
+    private final CourseRepository courseRepository;
+    private final ReferenceDataRegistry referenceData;
+    private final ProgressDashboardService dashboardService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Только чтение: одна проекция без сущностей, транзакция read-only без flush.
+    // Прогресс создаётся при одобрении заявки, поэтому его отсутствие - 404
+    @Transactional(readOnly = true)
     public StudyingProgressDto getProgress(Integer studentId, Integer courseId) {
-        Request request = requestRepository.findByStudentIdAndCourseId(studentId, courseId)
-                .orElseThrow(() -> new EntityNotFoundException("Request not found"));
-
-        StudyingProgress progress = progressRepository.findByRequest(request)
-                .orElseGet(() -> createNewProgress(request));
-
-        return convertToDto(progress);
+        return progressRepository.findProgressView(studentId, courseId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Progress not found"));
     }
 
     public List <CourseWithProgressDto> getCoursesWithProgress(Integer studentId) {
-        return progressRepository.findAllCoursesWithProgress(studentId).stream()
-                .map(CourseWithProgressDto::new)
-                .collect(Collectors.toList());
+        return referenceData.requestStatusId(ReferenceDataRegistry.APPROVED_REQUEST_STATUS)
+                .map(statusId -> progressRepository.findAllCoursesWithProgress(studentId, statusId).stream()
+                        .map(CourseWithProgressDto::new)
+                        .collect(Collectors.toList()))
+                .orElse(List.of());
     }
 
 
-    public StudyingProgress createNewProgress(Request request) {
-        // Получаем статус "В процессе" (id = 1)
-        StudyingStatus defaultStatus = studyingStatusRepository.findById(1)
-                .orElseThrow(() -> new RuntimeException("Default status not found"));
+    // Прогресс одобренной заявки; повторное одобрение и параллельное одобрение той же заявки
+    // не создают второй записи благодаря уникальному ключу по request_id
+    public void createNewProgress(Request request) {
+        jdbcTemplate.update("""
+                        INSERT INTO studying_progress (request_id, education_start_date, completion_percentage, studying_status_id)
+                        VALUES (:requestId, :now, 0, :studyingStatusId)
+                        ON CONFLICT DO NOTHING""",
+                new MapSqlParameterSource()
+                        .addValue("requestId", request.getId())
+                        .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                        .addValue("studyingStatusId", referenceData.defaultStudyingStatus().getId()));
+    }
 
-        StudyingProgress progress = new StudyingProgress();
-        progress.setRequest(request);
-        progress.setEducationStartDate(LocalDateTime.now());
-        progress.setPercent(0);
-        progress.setStatus(defaultStatus);
-        return progressRepository.save(progress);
+    // Прогресс создаётся при одобрении заявки. Заявки, одобренные до этого, получают его при старте;
+    // статусы берутся из справочника, который загружается раньше
+    @EventListener(ApplicationReadyEvent.class)
+    public void createMissingProgress() {
+        Optional<Integer> approvedStatusId = referenceData.requestStatusId(ReferenceDataRegistry.APPROVED_REQUEST_STATUS);
+        Optional<StudyingStatus> studyingStatus = referenceData.studyingStatus(ReferenceDataRegistry.DEFAULT_STUDYING_STATUS_ID);
+        if (approvedStatusId.isEmpty() || studyingStatus.isEmpty()) {
+            return;
+        }
+        int created = jdbcTemplate.update("""
+                        INSERT INTO studying_progress (request_id, education_start_date, completion_percentage, studying_status_id)
+                        SELECT r.request_id, COALESCE(r.processing_time, :now), 0, :studyingStatusId
+                        FROM request r
+                        WHERE r.request_status_id = :approvedStatusId
+                          AND NOT EXISTS (SELECT 1 FROM studying_progress p WHERE p.request_id = r.request_id)
+                        ON CONFLICT DO NOTHING""",
+                new MapSqlParameterSource()
+                        .addValue("now", Timestamp.valueOf(LocalDateTime.now()))
+                        .addValue("studyingStatusId", studyingStatus.get().getId())
+                        .addValue("approvedStatusId", approvedStatusId.get()));
+        if (created > 0) {
+            log.info("Created progress for {} approved requests", created);
+        }
     }
 
+    // Процент от клиента принимается только для курсов без материалов и заданий. У остальных курсов
+    // процент считается по пройденным элементам (StudyingCompletionService), и запрос ничего не меняет.
+    // Запись - один UPDATE по заявке студента; дата окончания ставится при 100% и потом не сбрасывается
     public void updateProgress(Integer studentId, StudyingProgressDto progressDto) {
-        Request request = requestRepository.findByStudentIdAndCourseId(studentId, progressDto.getCourseId())
-                .orElseThrow(() -> new EntityNotFoundException("Request not found"));
-
-        StudyingProgress progress = progressRepository.findByRequest(request)
-                .orElseGet(() -> createNewProgress(request));
-
-        progress.setPercent(progressDto.getPercent());
-        if (progressDto.getPercent() == 100) {
-            progress.setGraduationDate(LocalDateTime.now());
+        if (progressDto.getPercent() == null || progressDto.getPercent() < 0 || progressDto.getPercent() > 100) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Percent must be between 0 and 100");
         }
-
-        progressRepository.save(progress);
+        int itemCount = courseRepository.findProgressItemCount(progressDto.getCourseId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+        if (itemCount > 0) {
+            return;
+        }
+        int updated = jdbcTemplate.update("""
+                        UPDATE studying_progress
+                        SET completion_percentage = :percent,
+                            graduation_date = COALESCE(:graduationDate, graduation_date)
+                        WHERE request_id IN (SELECT request_id FROM request
+                                             WHERE student_id = :studentId AND course_id = :courseId)""",
+                new MapSqlParameterSource()
+                        .addValue("percent", progressDto.getPercent())
+                        .addValue("graduationDate", progressDto.getPercent() == 100
+                                ? Timestamp.valueOf(LocalDateTime.now()) : null, Types.TIMESTAMP)
+                        .addValue("studentId", studentId)
+                        .addValue("courseId", progressDto.getCourseId()));
+        if (updated == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Progress not found");
+        }
+        dashboardService.invalidateCourse(progressDto.getCourseId());
     }
 
     public List<StudentWithProgressDto> getAllStudentsWithProgressByGroup(Integer groupId) {
@@ -78,11 +129,4 @@ public class StudyingProgressService {
                 .map(StudentWithProgressDto::new)
                 .collect(Collectors.toList());
     }
-
-    private StudyingProgressDto convertToDto(StudyingProgress progress) {
-        StudyingProgressDto dto = new StudyingProgressDto(progress);
-        dto.setCourseId(progress.getRequest().getCourse().getId());
-        dto.setPercent(progress.getPercent());
-        return dto;
-    }
 }
@@ -3,20 +3,19 @@ package dev.lms.service;
 import dev.lms.models.RequestStatus;
 import dev.lms.models.StudyingStatus;
 import dev.lms.repository.RequestStatusRepository;
-import dev.lms.repository.StudyingStatusRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 @Service
 public class StudyingStatusService {
-    private final StudyingStatusRepository studyingStatusRepository;
+    private final ReferenceDataRegistry referenceData;
 
-    public StudyingStatusService(StudyingStatusRepository studyingStatusRepository) {
-        this.studyingStatusRepository = studyingStatusRepository;
+    public StudyingStatusService(ReferenceDataRegistry referenceData) {
+        this.referenceData = referenceData;
     }
 
     public List<StudyingStatus> getAll() {
-        return studyingStatusRepository.findAll();
+        return referenceData.studyingStatuses();
     }
 }
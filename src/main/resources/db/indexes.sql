@@ -0,0 +1,171 @@
+-- Индексы под keyset-пагинацию и фильтры каталога курсов
+CREATE INDEX IF NOT EXISTS idx_course_start_date_id ON course (start_date, course_id);
+CREATE INDEX IF NOT EXISTS idx_course_category_start_date ON course (category_id, start_date, course_id);
+CREATE INDEX IF NOT EXISTS idx_course_status_start_date ON course (course_status_id, start_date, course_id);
+
+-- Очередь заявок: сортировка по (create_time, request_id), отдельный индекс под каждый фильтр.
+-- Keyset-сравнение кортежей не работает с NULL, поэтому у старых заявок без даты она заполняется
+UPDATE request SET create_time = COALESCE(processing_time, now()) WHERE create_time IS NULL;
+CREATE INDEX IF NOT EXISTS idx_request_create_time_id ON request (create_time, request_id);
+CREATE INDEX IF NOT EXISTS idx_request_status_create_time ON request (request_status_id, create_time, request_id);
+CREATE INDEX IF NOT EXISTS idx_request_course_create_time ON request (course_id, create_time, request_id);
+CREATE INDEX IF NOT EXISTS idx_request_group_create_time ON request (group_id, create_time, request_id);
+CREATE INDEX IF NOT EXISTS idx_request_unassigned_create_time ON request (create_time, request_id) WHERE group_id IS NULL;
+
+-- Счётчик мест в группах: у групп, созданных без счётчика, он заполняется по фактическим заявкам
+UPDATE student_group g SET student_count = (SELECT COUNT(*) FROM request r WHERE r.group_id = g.group_id)
+WHERE g.student_count IS NULL;
+
+-- Одна заявка студента на курс: на этот ключ опирается INSERT ... ON CONFLICT DO NOTHING при создании заявки.
+-- Выполняется один раз, пока индекса нет. Повторные заявки без прогресса удаляются (остаётся заявка с прогрессом,
+-- иначе самая ранняя), счётчики мест затем выправляет сверка групп. Если у студента несколько заявок на курс
+-- с прогрессом, индекс не создаётся и в журнал пишется предупреждение: такие заявки разбираются вручную.
+-- Тело блока в одинарных кавычках, чтобы загрузчик скрипта не делил его по ";"
+DO '
+BEGIN
+    IF to_regclass(''uq_request_student_course'') IS NULL THEN
+        DELETE FROM request r
+        WHERE NOT EXISTS (SELECT 1 FROM studying_progress p WHERE p.request_id = r.request_id)
+          AND EXISTS (SELECT 1 FROM request o
+                      WHERE o.student_id = r.student_id AND o.course_id = r.course_id AND o.request_id <> r.request_id
+                        AND (o.request_id < r.request_id
+                             OR EXISTS (SELECT 1 FROM studying_progress p WHERE p.request_id = o.request_id)));
+        IF EXISTS (SELECT 1 FROM request GROUP BY student_id, course_id HAVING COUNT(*) > 1) THEN
+            RAISE WARNING ''uq_request_student_course is not created: several requests with progress for one student and course'';
+        ELSE
+            CREATE UNIQUE INDEX uq_request_student_course ON request (student_id, course_id);
+        END IF;
+    END IF;
+END';
+
+-- Прогресс по пройденным материалам и оценённым заданиям: счётчики и таблица пройденных элементов.
+-- Выполняется один раз, пока таблицы нет, и заполняет счётчики по существующим данным так же, как
+-- StudyingCompletionService.rebuild: оценённые задания засчитываются, у прогресса, заданного клиентом,
+-- засчитываются первые материалы в доле процента, затем пересчитываются счётчики и проценты
+DO '
+BEGIN
+    IF to_regclass(''studying_completion'') IS NULL THEN
+        ALTER TABLE course ADD COLUMN IF NOT EXISTS progress_item_count integer NOT NULL DEFAULT 0;
+        ALTER TABLE studying_progress ADD COLUMN IF NOT EXISTS completed_item_count integer NOT NULL DEFAULT 0;
+        CREATE TABLE studying_completion (
+            completion_id serial PRIMARY KEY,
+            request_id integer NOT NULL REFERENCES request (request_id) ON DELETE CASCADE,
+            material_id integer REFERENCES educational_material (material_id),
+            assignment_id integer REFERENCES assignment (assignment_id),
+            completed_at timestamp NOT NULL,
+            CONSTRAINT uq_completion_material UNIQUE (request_id, material_id),
+            CONSTRAINT uq_completion_assignment UNIQUE (request_id, assignment_id)
+        );
+        UPDATE course c SET progress_item_count =
+            (SELECT COUNT(*) FROM educational_material m WHERE m.course_id = c.course_id)
+          + (SELECT COUNT(*) FROM assignment a WHERE a.course_id = c.course_id);
+        INSERT INTO studying_completion (request_id, assignment_id, completed_at)
+        SELECT r.request_id, s.assignment_id, MIN(s.sending_date)
+        FROM solution s
+        JOIN assignment a ON a.assignment_id = s.assignment_id
+        JOIN request r ON r.student_id = s.student_id AND r.course_id = a.course_id
+        JOIN studying_progress p ON p.request_id = r.request_id
+        WHERE s.solution_score IS NOT NULL
+        GROUP BY r.request_id, s.assignment_id
+        ON CONFLICT DO NOTHING;
+        INSERT INTO studying_completion (request_id, material_id, completed_at)
+        SELECT p.request_id, m.material_id, COALESCE(p.graduation_date, now())
+        FROM studying_progress p
+        JOIN request r ON r.request_id = p.request_id
+        JOIN (SELECT material_id, course_id,
+                     ROW_NUMBER() OVER (PARTITION BY course_id ORDER BY material_id) AS position,
+                     COUNT(*) OVER (PARTITION BY course_id) AS total
+              FROM educational_material) m ON m.course_id = r.course_id
+        WHERE (m.position - 1) * 100 < COALESCE(p.completion_percentage, 0) * m.total
+        ON CONFLICT DO NOTHING;
+        UPDATE studying_progress p SET completed_item_count =
+            (SELECT COUNT(*) FROM studying_completion sc WHERE sc.request_id = p.request_id);
+        UPDATE studying_progress p SET completion_percentage = COALESCE((
+            SELECT LEAST(100, p.completed_item_count * 100 / c.progress_item_count)
+            FROM request r
+            JOIN course c ON c.course_id = r.course_id
+            WHERE r.request_id = p.request_id AND c.progress_item_count > 0), p.completion_percentage);
+    END IF;
+END';
+
+-- Один прогресс на заявку: на этот ключ опирается INSERT ... ON CONFLICT DO NOTHING при одобрении заявки.
+-- Выполняется один раз, пока индекса нет; из повторных записей прогресса остаётся самая ранняя.
+-- Пройденные элементы привязаны к заявке, поэтому счётчик у оставшейся записи пересчитывать не нужно
+DO '
+BEGIN
+    IF to_regclass(''uq_studying_progress_request'') IS NULL THEN
+        DELETE FROM studying_progress p
+        WHERE EXISTS (SELECT 1 FROM studying_progress o
+                      WHERE o.request_id = p.request_id AND o.progress_id < p.progress_id);
+        CREATE UNIQUE INDEX uq_studying_progress_request ON studying_progress (request_id);
+    END IF;
+END';
+
+-- Очередь проверки решений: аренда решения преподавателем и частичные индексы по непроверенным решениям
+-- в порядке отправки (общий и в разрезе задания, планировщик выбирает по числу заданий преподавателя)
+ALTER TABLE solution ADD COLUMN IF NOT EXISTS lease_worker_id integer REFERENCES worker (worker_id) ON DELETE SET NULL;
+ALTER TABLE solution ADD COLUMN IF NOT EXISTS lease_expires_at timestamp;
+CREATE INDEX IF NOT EXISTS idx_solution_ungraded_queue ON solution (sending_date, solution_id) WHERE solution_score IS NULL;
+CREATE INDEX IF NOT EXISTS idx_solution_ungraded_assignment ON solution (assignment_id, sending_date, solution_id)
+    WHERE solution_score IS NULL;
+
+-- Статистика по заданиям: счётчики решений и распределение оценок, ведёт AssignmentStatsService.
+-- Задания без строки счётчиков получают её здесь по фактическим решениям, дальше счётчики меняются
+-- при отправке и оценке решений. Индекс - под проверку первого решения студента и пересчёт задания
+CREATE TABLE IF NOT EXISTS assignment_stats (
+    assignment_id integer PRIMARY KEY REFERENCES assignment (assignment_id) ON DELETE CASCADE,
+    submission_count integer NOT NULL DEFAULT 0,
+    graded_count integer NOT NULL DEFAULT 0,
+    score_sum bigint NOT NULL DEFAULT 0,
+    late_count integer NOT NULL DEFAULT 0,
+    student_count integer NOT NULL DEFAULT 0
+);
+CREATE TABLE IF NOT EXISTS assignment_score_count (
+    score_count_id serial PRIMARY KEY,
+    assignment_id integer NOT NULL REFERENCES assignment (assignment_id) ON DELETE CASCADE,
+    score integer NOT NULL,
+    solution_count integer NOT NULL DEFAULT 0,
+    CONSTRAINT uq_assignment_score UNIQUE (assignment_id, score)
+);
+CREATE INDEX IF NOT EXISTS idx_solution_assignment_student ON solution (assignment_id, student_id);
+INSERT INTO assignment_score_count (assignment_id, score, solution_count)
+SELECT s.assignment_id, s.solution_score, COUNT(*)
+FROM solution s
+WHERE s.solution_score IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM assignment_stats st WHERE st.assignment_id = s.assignment_id)
+GROUP BY s.assignment_id, s.solution_score
+ON CONFLICT DO NOTHING;
+INSERT INTO assignment_stats (assignment_id, submission_count, graded_count, score_sum, late_count, student_count)
+SELECT a.assignment_id,
+       COUNT(s.solution_id),
+       COUNT(s.solution_score),
+       COALESCE(SUM(s.solution_score), 0),
+       COUNT(CASE WHEN s.sending_date > a.deadline THEN 1 END),
+       COUNT(DISTINCT s.student_id)
+FROM assignment a
+LEFT JOIN solution s ON s.assignment_id = a.assignment_id
+WHERE NOT EXISTS (SELECT 1 FROM assignment_stats st WHERE st.assignment_id = a.assignment_id)
+GROUP BY a.assignment_id;
+
+-- Обработка сроков заданий: отметка времени обработки, флаг опоздания у решения и отметки об отсутствии
+-- решения. Планировщик берёт ближайший необработанный срок по частичному индексу. Существующие задания
+-- при добавлении колонки считаются обработанными: до исправления addAssignment срок у них был равен
+-- времени создания и разметка по нему не имеет смысла
+ALTER TABLE assignment ADD COLUMN IF NOT EXISTS deadline_processed_at timestamp DEFAULT now();
+ALTER TABLE assignment ALTER COLUMN deadline_processed_at DROP DEFAULT;
+CREATE INDEX IF NOT EXISTS idx_assignment_deadline_due ON assignment (deadline)
+    WHERE deadline_processed_at IS NULL AND deadline IS NOT NULL;
+ALTER TABLE solution ADD COLUMN IF NOT EXISTS is_late boolean NOT NULL DEFAULT false;
+CREATE TABLE IF NOT EXISTS missing_submission (
+    missing_id serial PRIMARY KEY,
+    assignment_id integer NOT NULL REFERENCES assignment (assignment_id) ON DELETE CASCADE,
+    request_id integer NOT NULL REFERENCES request (request_id) ON DELETE CASCADE,
+    marked_at timestamp NOT NULL,
+    CONSTRAINT uq_missing_submission UNIQUE (assignment_id, request_id)
+);
+
+-- Импорт студентов сравнивает email без учёта регистра
+CREATE INDEX IF NOT EXISTS idx_student_email_lower ON student (LOWER(email));
+
+-- Версия страницы курса: ETag /api/courses/{id}/workspace проверяется без сборки страницы
+ALTER TABLE course ADD COLUMN IF NOT EXISTS workspace_version bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,105 @@
+package dev.lms;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Скачивание файлов через FileDownloadService: весь файл, один интервал Range, интервал за концом файла,
+// устаревший If-Range и попытка выйти за каталог загрузок
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FileDownloadRangeTest {
+    private static final String URL = "/api/files/download/";
+    private static final String FILE_NAME = "range-test.pdf";
+    private static final String SECRET_NAME = "range-test-secret.txt";
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Value("${upload.path}")
+    private String uploadPath;
+
+    private Path file;
+    private Path secret;
+
+    @BeforeAll
+    void setUp() throws IOException {
+        Path root = Paths.get(uploadPath).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        file = Files.writeString(root.resolve(FILE_NAME), CONTENT, StandardCharsets.US_ASCII);
+        // Файл рядом с каталогом загрузок, до которого не должен дотянуться ../
+        secret = Files.writeString(root.getParent().resolve(SECRET_NAME), "secret", StandardCharsets.US_ASCII);
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(secret);
+    }
+
+    @Test
+    void fullFile() throws Exception {
+        mockMvc.perform(get(URL + FILE_NAME))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length()))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    void singleRange() throws Exception {
+        mockMvc.perform(get(URL + FILE_NAME).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/" + CONTENT.length()))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    void rangeBeyondEndOfFile() throws Exception {
+        mockMvc.perform(get(URL + FILE_NAME).header(HttpHeaders.RANGE, "bytes=100-200"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + CONTENT.length()));
+    }
+
+    @Test
+    void staleIfRangeReturnsWholeFile() throws Exception {
+        mockMvc.perform(get(URL + FILE_NAME)
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().string(CONTENT));
+    }
+
+    // Закодированный "/" отклоняет фаервол Spring Security, до контроллера запрос не доходит
+    @Test
+    void pathOutsideUploadDirectory() throws Exception {
+        mockMvc.perform(get(URI.create(URL + "..%2F" + SECRET_NAME)))
+                .andExpect(status().isBadRequest());
+    }
+}
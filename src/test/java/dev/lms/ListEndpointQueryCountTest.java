@@ -0,0 +1,334 @@
+package dev.lms;
+
+import dev.lms.jwt.JwtCore;
+import dev.lms.models.*;
+import dev.lms.service.CourseCatalogCache;
+import dev.lms.service.ReferenceDataRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Защита от N+1: число SQL-запросов списочного эндпоинта не должно зависеть от числа строк.
+// Каждый эндпоинт вызывается на маленьком наборе данных и после добавления новых строк,
+// счётчик запросов берётся из статистики Hibernate
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ListEndpointQueryCountTest {
+    private static final int SMALL = 2;
+    private static final int LARGE = 12;
+    // Поиск и справочники отдаются из памяти без запросов к БД
+    private static final List<String> SERVED_FROM_MEMORY = List.of("/api/courses/search", "/api/category",
+            "/api/status", "/api/document-type", "/api/request/status", "/api/progress/status");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JwtCore jwtCore;
+    @Autowired
+    private CourseCatalogCache courseCatalogCache;
+    @Autowired
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    private Statistics statistics;
+    private Fixture fixture;
+    private int seeded;
+
+    @BeforeAll
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        fixture = transactionTemplate.execute(status -> createFixture());
+    }
+
+    @Test
+    void listEndpointsRunConstantNumberOfQueries() throws Exception {
+        seedUpTo(SMALL);
+        Map<String, Long> small = measureAll();
+        seedUpTo(LARGE);
+        Map<String, Long> large = measureAll();
+
+        List<String> failures = new ArrayList<>();
+        small.forEach((endpoint, queries) -> {
+            long grown = large.get(endpoint);
+            if (grown != queries) {
+                failures.add(endpoint + ": " + queries + " queries for " + SMALL + " rows, " + grown + " for " + LARGE);
+            }
+        });
+        if (!failures.isEmpty()) {
+            fail("Query count grows with row count (N+1):\n" + String.join("\n", failures));
+        }
+    }
+
+    private Map<String, Long> measureAll() throws Exception {
+        String studentToken = "Bearer " + jwtCore.generateToken(fixture.student.getEmail(), fixture.student.getId(), "STUDENT", "Студент");
+        String teacherToken = "Bearer " + jwtCore.generateToken(fixture.teacher.getEmail(), fixture.teacher.getId(), "TEACHER", "Преподаватель");
+        Integer courseId = fixture.course.getId();
+        Integer groupId = fixture.group.getId();
+        Integer assignmentId = fixture.assignment.getId();
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("/api/courses", measure("/api/courses", null));
+        counts.put("/api/courses/details", measure("/api/courses/details", null));
+        counts.put("/api/courses/page", measure("/api/courses/page?size=100", null));
+        counts.put("/api/courses/{id}/workspace", measure("/api/courses/" + courseId + "/workspace", studentToken));
+        counts.put("/api/courses/my", measure("/api/courses/my", teacherToken));
+        counts.put("/api/category", measure("/api/category", null));
+        counts.put("/api/status", measure("/api/status", null));
+        counts.put("/api/document-type", measure("/api/document-type", null));
+        counts.put("/api/request/status", measure("/api/request/status", null));
+        counts.put("/api/progress/status", measure("/api/progress/status", null));
+        counts.put("/api/groups", measure("/api/groups", null));
+        counts.put("/api/groups/{courseId}", measure("/api/groups/" + courseId, null));
+        counts.put("/api/assignments/{courseId}", measure("/api/assignments/" + courseId, null));
+        counts.put("/api/material/{courseId}", measure("/api/material/" + courseId, null));
+        counts.put("/api/files/assignment/{id}", measure("/api/files/assignment/" + assignmentId, null));
+        counts.put("/api/requests", measure("/api/requests", null));
+        counts.put("/api/requests/page", measure("/api/requests/page?size=100", null));
+        counts.put("/api/requests/my", measure("/api/requests/my", studentToken));
+        counts.put("/api/requests/my-courses", measure("/api/requests/my-courses", studentToken));
+        counts.put("/api/requests/groups/{id}/students", measure("/api/requests/groups/" + groupId + "/students", null));
+        counts.put("/api/solutions/{assignmentId}", measure("/api/solutions/" + assignmentId, null));
+        counts.put("/api/solutions/my", measure("/api/solutions/my", studentToken));
+        counts.put("/api/students", measure("/api/students", null));
+        counts.put("/api/workers", measure("/api/workers", null));
+        counts.put("/api/documents/student/{id}", measure("/api/documents/student/" + fixture.student.getId(), null));
+        counts.put("/api/progress/groups/{id}/students", measure("/api/progress/groups/" + groupId + "/students", null));
+        counts.put("/api/progress/my-courses", measure("/api/progress/my-courses", studentToken));
+        return counts;
+    }
+
+    private long measure(String url, String token) throws Exception {
+        // Каталог курсов кэшируется, для подсчёта запросов нужен промах
+        courseCatalogCache.invalidate();
+        statistics.clear();
+        var request = get(url);
+        if (token != null) {
+            request.header(HttpHeaders.AUTHORIZATION, token);
+        }
+        mockMvc.perform(request).andExpect(status().isOk());
+        long queries = statistics.getPrepareStatementCount();
+        assertTrue(queries > 0 || SERVED_FROM_MEMORY.stream().anyMatch(url::startsWith), url + " executed no queries");
+        return queries;
+    }
+
+    private void seedUpTo(int rows) {
+        while (seeded < rows) {
+            int i = ++seeded;
+            transactionTemplate.executeWithoutResult(status -> seedRow(i));
+        }
+        // Справочники засеяны в обход сервисов, снимок реестра нужно перечитать
+        referenceDataRegistry.reload();
+    }
+
+    // Каждая строка ссылается на свои справочные записи, иначе ленивые связи
+    // разрешались бы из контекста персистентности и N+1 не проявлялся
+    private void seedRow(int i) {
+        Fixture f = fixture;
+        Worker teacher = entityManager.find(Worker.class, f.teacher.getId());
+        Student me = entityManager.find(Student.class, f.student.getId());
+        Course mainCourse = entityManager.find(Course.class, f.course.getId());
+        Group mainGroup = entityManager.find(Group.class, f.group.getId());
+        Assignment mainAssignment = entityManager.find(Assignment.class, f.assignment.getId());
+
+        Category category = persist(new Category(), c -> c.setName("Категория " + i));
+        CourseStatus courseStatus = persist(new CourseStatus(), s -> s.setName("Статус " + i));
+        Course course = persist(new Course(), c -> {
+            c.setName("Курс " + i);
+            c.setDescription("Описание курса " + i);
+            c.setStudyDirection("Направление " + i);
+            c.setStartDate(LocalDateTime.of(2025, 9, 1, 0, 0).plusDays(i));
+            c.setEndDate(LocalDateTime.of(2026, 6, 1, 0, 0));
+            c.setHoursCount(72);
+            c.setResultCompetence("Компетенция " + i);
+            c.setCategory(category);
+            c.setStatus(courseStatus);
+            c.getWorker().add(teacher);
+        });
+        Group group = persist(new Group(), g -> {
+            g.setName("Группа " + i);
+            g.setCourse(course);
+            g.setStudentCount(0);
+            g.setMaxStudentCount(30);
+        });
+
+        WorkerRole role = persist(new WorkerRole(), r -> r.setName("Роль " + i));
+        persist(new Worker(), w -> {
+            w.setLastName("Иванов");
+            w.setFirstName("Иван");
+            w.setMiddleName("Иванович");
+            w.setEmail("worker" + i + "@lms.dev");
+            w.setPassword("x");
+            w.setRole(role);
+        });
+
+        Student student = persist(new Student(), s -> {
+            s.setLastName("Петров " + i);
+            s.setFirstName("Пётр");
+            s.setMiddleName("Петрович");
+            s.setEmail("student" + i + "@lms.dev");
+            s.setPassword("x");
+        });
+        // Заявка нового студента в основную группу и заявка текущего студента на новый курс
+        Request groupRequest = persist(new Request(), r -> {
+            r.setStudent(student);
+            r.setCourse(mainCourse);
+            r.setGroup(mainGroup);
+            r.setStatus(f.approved);
+            r.setCreateTime(LocalDateTime.now());
+        });
+        Request myRequest = persist(new Request(), r -> {
+            r.setStudent(me);
+            r.setCourse(course);
+            r.setGroup(group);
+            r.setStatus(f.approved);
+            r.setCreateTime(LocalDateTime.now());
+        });
+        StudyingStatus studyingStatus = persist(new StudyingStatus(), s -> s.setName("Обучение " + i));
+        for (Request request : List.of(groupRequest, myRequest)) {
+            persist(new StudyingProgress(), p -> {
+                p.setRequest(request);
+                p.setStatus(studyingStatus);
+                p.setEducationStartDate(LocalDateTime.now());
+                p.setPercent(i);
+            });
+        }
+
+        SolutionStatus solutionStatus = persist(new SolutionStatus(), s -> s.setName("Оценка " + i));
+        Assignment assignment = persist(new Assignment(), a -> {
+            a.setAssignmentName("Задание " + i);
+            a.setAssignmentDescription("Описание задания " + i);
+            a.setCourse(mainCourse);
+        });
+        persist(new Solution(), s -> {
+            s.setStudent(student);
+            s.setAssignment(mainAssignment);
+            s.setStatus(solutionStatus);
+            s.setSendingDate(LocalDateTime.now());
+        });
+        persist(new Solution(), s -> {
+            s.setStudent(me);
+            s.setAssignment(assignment);
+            s.setStatus(solutionStatus);
+            s.setSendingDate(LocalDateTime.now());
+        });
+        persist(new AttachedFile(), a -> {
+            a.setFileName("file" + i + ".pdf");
+            a.setUrlAddress("file" + i + ".pdf");
+            a.setAssignment(mainAssignment);
+        });
+        persist(new EducationMaterial(), m -> {
+            m.setName("Материал " + i);
+            m.setAddingDate(LocalDateTime.now());
+            m.setCourse(mainCourse);
+        });
+
+        DocumentType documentType = persist(new DocumentType(), t -> t.setName("Тип " + i));
+        persist(new Document(), d -> {
+            d.setFileName("doc" + i + ".pdf");
+            d.setUrlAddress("doc" + i + ".pdf");
+            d.setCreateDate(LocalDateTime.now());
+            d.setStudent(me);
+            d.setType(documentType);
+        });
+        persist(new Passport(), p -> {
+            p.setSeries("1234");
+            p.setNumber(String.format("%06d", i));
+            p.setIssuedBy("УФМС");
+            p.setIssuedDate(LocalDate.of(2020, 1, 1));
+            p.setDateOfBirth(LocalDate.of(2000, 1, 1));
+            p.setStudent(student);
+        });
+    }
+
+    private Fixture createFixture() {
+        Fixture f = new Fixture();
+        persist(new RequestStatus(), s -> s.setName("В рассмотрении"));
+        f.approved = persist(new RequestStatus(), s -> s.setName("Одобрена"));
+        WorkerRole teacherRole = persist(new WorkerRole(), r -> r.setName("Преподаватель"));
+        f.teacher = persist(new Worker(), w -> {
+            w.setLastName("Сидоров");
+            w.setFirstName("Сидор");
+            w.setMiddleName("Сидорович");
+            w.setEmail("teacher@lms.dev");
+            w.setPassword("x");
+            w.setRole(teacherRole);
+        });
+        f.student = persist(new Student(), s -> {
+            s.setLastName("Смирнов");
+            s.setFirstName("Алексей");
+            s.setMiddleName("Алексеевич");
+            s.setEmail("me@lms.dev");
+            s.setPassword("x");
+        });
+        Category category = persist(new Category(), c -> c.setName("Основная"));
+        CourseStatus courseStatus = persist(new CourseStatus(), s -> s.setName("Открыт"));
+        f.course = persist(new Course(), c -> {
+            c.setName("Основной курс");
+            c.setStudyDirection("Программирование");
+            c.setStartDate(LocalDateTime.of(2025, 9, 1, 0, 0));
+            c.setHoursCount(144);
+            c.setResultCompetence("Разработчик");
+            c.setCategory(category);
+            c.setStatus(courseStatus);
+            c.getWorker().add(f.teacher);
+        });
+        f.group = persist(new Group(), g -> {
+            g.setName("Основная группа");
+            g.setCourse(f.course);
+            g.setStudentCount(0);
+            g.setMaxStudentCount(30);
+        });
+        f.assignment = persist(new Assignment(), a -> {
+            a.setAssignmentName("Основное задание");
+            a.setAssignmentDescription("Описание");
+            a.setCourse(f.course);
+        });
+        return f;
+    }
+
+    private <T> T persist(T entity, java.util.function.Consumer<T> init) {
+        init.accept(entity);
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private static class Fixture {
+        private RequestStatus approved;
+        private Worker teacher;
+        private Student student;
+        private Course course;
+        private Group group;
+        private Assignment assignment;
+    }
+}
@@ -0,0 +1,148 @@
+package dev.lms;
+
+import dev.lms.dto.CreateRequestDTO;
+import dev.lms.service.ReferenceDataRegistry;
+import dev.lms.service.RequestService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Нагрузочный замер создания заявок: сколько заявок в секунду принимает RequestService при параллельной отправке.
+// Каждая пара студент-курс отправляется дважды одновременно, создаться должна ровно одна заявка.
+// Запуск: mvn test -Dtest=RequestSubmissionBenchmarkTest -Dbenchmark=true [-Dbenchmark.threads=16]
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RequestSubmissionBenchmarkTest {
+    private static final int STUDENTS = 500;
+    private static final int COURSES = 10;
+    private static final int WARMUP_STUDENTS = 50;
+
+    @Autowired
+    private RequestService requestService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    @Test
+    void concurrentSubmissions() throws Exception {
+        int threads = Integer.getInteger("benchmark.threads", 16);
+        List<Integer> courseIds = seedCourses();
+        List<Integer> warmupStudents = seedStudents("warmup", WARMUP_STUDENTS);
+        List<Integer> students = seedStudents("bench", STUDENTS);
+        referenceDataRegistry.reload();
+
+        run(submissions(warmupStudents, courseIds), threads);
+
+        List<CreateRequestDTO> submissions = submissions(students, courseIds);
+        long started = System.nanoTime();
+        Result result = run(submissions, threads);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("Request submissions: %d in %.2f s with %d threads, %.0f submissions/s, %d rejected as duplicates%n",
+                submissions.size(), seconds, threads, submissions.size() / seconds, result.duplicates());
+        assertEquals(students.size() * courseIds.size(), result.created());
+        assertEquals(students.size() * courseIds.size(), (int) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM request WHERE student_id IN (SELECT student_id FROM student WHERE email LIKE 'bench%')",
+                Integer.class));
+    }
+
+    private Result run(List<CreateRequestDTO> submissions, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>(submissions.size());
+            for (CreateRequestDTO dto : submissions) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        requestService.createRequest(dto, dto.getStudentId().longValue());
+                        created.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if (!"Request already exists for this course".equals(e.getMessage())) {
+                            throw e;
+                        }
+                        duplicates.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        return new Result(created.get(), duplicates.get());
+    }
+
+    // Каждая пара дважды подряд, порядок перемешан, чтобы дубли шли из разных потоков
+    private static List<CreateRequestDTO> submissions(List<Integer> students, List<Integer> courseIds) {
+        List<CreateRequestDTO> submissions = new ArrayList<>(students.size() * courseIds.size() * 2);
+        for (Integer studentId : students) {
+            for (Integer courseId : courseIds) {
+                for (int copy = 0; copy < 2; copy++) {
+                    CreateRequestDTO dto = new CreateRequestDTO();
+                    dto.setStudentId(studentId);
+                    dto.setCourseId(courseId);
+                    submissions.add(dto);
+                }
+            }
+        }
+        Collections.shuffle(submissions);
+        return submissions;
+    }
+
+    private List<Integer> seedCourses() {
+        Integer defaultStatuses = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM request_status WHERE request_status_id = ?", Integer.class,
+                ReferenceDataRegistry.DEFAULT_REQUEST_STATUS_ID);
+        if (defaultStatuses == 0) {
+            jdbcTemplate.update("INSERT INTO request_status (name) VALUES ('В рассмотрении')");
+        }
+        jdbcTemplate.update("INSERT INTO category (category_name) VALUES ('Нагрузочный тест')");
+        jdbcTemplate.update("INSERT INTO course_status (course_status_name) VALUES ('Нагрузочный тест')");
+        Integer categoryId = jdbcTemplate.queryForObject("SELECT MAX(category_id) FROM category", Integer.class);
+        Integer statusId = jdbcTemplate.queryForObject("SELECT MAX(course_status_id) FROM course_status", Integer.class);
+        for (int i = 0; i < COURSES; i++) {
+            jdbcTemplate.update("""
+                    INSERT INTO course (course_name, study_direction, start_date, hours_count, result_competence,
+                                        category_id, course_status_id)
+                    VALUES (?, 'Нагрузка', now(), 72, 'Нагрузка', ?, ?)""", "bench-course-" + i, categoryId, statusId);
+        }
+        return jdbcTemplate.queryForList("SELECT course_id FROM course WHERE course_name LIKE 'bench-course-%'", Integer.class);
+    }
+
+    private List<Integer> seedStudents(String prefix, int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"Студент", "Нагрузочный", "", prefix + i + "@lms.dev", "x"});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO student (surname, name, second_name, email, password) VALUES (?, ?, ?, ?, ?)", rows);
+        return jdbcTemplate.queryForList("SELECT student_id FROM student WHERE email LIKE ?", Integer.class, prefix + "%");
+    }
+
+    private record Result(int created, int duplicates) {
+    }
+}
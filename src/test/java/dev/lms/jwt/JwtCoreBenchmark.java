@@ -0,0 +1,56 @@
+package dev.lms.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import java.util.concurrent.TimeUnit;
+
+// Микробенчмарк проверки токенов: запросов/с до и после перехода на однократный разбор.
+// Запуск: java -cp target/classes:target/test-classes:<classpath> dev.lms.jwt.JwtCoreBenchmark
+public class JwtCoreBenchmark {
+    private static final String SECRET = "benchmark-secret-must-be-at-least-32-chars";
+    private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+    public static void main(String[] args) {
+        JwtCore jwtCore = new JwtCore(SECRET, 86400L, 10_000);
+        String token = jwtCore.generateToken("student@lms.dev", 42, "STUDENT", "Студент");
+
+        // Старый путь: validateToken + четыре геттера, каждый с новым ключом и парсером
+        run("legacy (5 parses per request)", () -> {
+            for (int i = 0; i < 5; i++) {
+                legacyParse(token);
+            }
+        });
+        // Один разбор на запрос без кэша
+        run("parse once, no cache", () -> jwtCore.verify(token));
+        // Один разбор на токен, дальше кэш
+        run("parse once, cached", () -> jwtCore.parseToken(token));
+    }
+
+    private static Claims legacyParse(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    private static void run(String name, Runnable request) {
+        // Прогрев JIT
+        long warmupEnd = System.nanoTime() + DURATION_NANOS;
+        while (System.nanoTime() < warmupEnd) {
+            request.run();
+        }
+
+        long requests = 0;
+        long start = System.nanoTime();
+        long end = start + DURATION_NANOS;
+        while (System.nanoTime() < end) {
+            request.run();
+            requests++;
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("%-32s %,12.0f requests/s%n", name, requests / seconds);
+    }
+}